@@ -0,0 +1,99 @@
+package puzzles.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzles.common.solver.Configuration;
+import puzzles.hoppers.model.HoppersConfig;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the three {@link HoppersConfig} operations the BFS spends its time in: making the neighbors, and the
+ * hashCode and equals calls of the visited map.
+ *
+ * @author Evan Prizel, emp4506
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HoppersConfigBenchmark {
+
+    /**
+     * The puzzle file, one with a few frogs and the biggest board.
+     */
+    @Param({"data/hoppers/hoppers-5.txt", "data/hoppers/hoppers-custom.txt"})
+    public String file;
+
+    /**
+     * The starting configuration, a copy of it, and one of its neighbors.
+     */
+    private HoppersConfig start;
+    private HoppersConfig copy;
+    private HoppersConfig neighbor;
+
+    /**
+     * Reads the puzzle file twice and makes a neighbor.
+     *
+     * @throws IOException Thrown if the file can't be read.
+     */
+    @Setup
+    public void setup() throws IOException {
+        start = new HoppersConfig(file);
+        copy = new HoppersConfig(file);
+        neighbor = (HoppersConfig) start.getNeighbors().iterator().next();
+    }
+
+    /**
+     * Makes every neighbor of the start.
+     *
+     * @return The neighbors.
+     */
+    @Benchmark
+    public Collection<Configuration> getNeighbors() {
+        return start.getNeighbors();
+    }
+
+    /**
+     * Hashes the start.
+     *
+     * @return The hash.
+     */
+    @Benchmark
+    public int hash() {
+        return start.hashCode();
+    }
+
+    /**
+     * Compares the start with an equal configuration that is a different object.
+     *
+     * @return True.
+     */
+    @Benchmark
+    public boolean equalsSame() {
+        return start.equals(copy);
+    }
+
+    /**
+     * Compares the start with one of its neighbors.
+     *
+     * @return False.
+     */
+    @Benchmark
+    public boolean equalsNeighbor() {
+        return start.equals(neighbor);
+    }
+}
@@ -0,0 +1,124 @@
+package puzzles.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzles.hoppers.model.HoppersModel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times what the GUI asks the model for on hoppers-7: a hint from the start of the board, and selecting a frog
+ * followed by a jump that isn't allowed, which leaves the board as it was. The model prints every action, so
+ * System.out is silenced while the benchmarks run.
+ * <p>
+ * The solvability map is built before anything is timed, and resetting to the same board keeps it, so no background
+ * thread is building it while a hint is timed.
+ *
+ * @author Evan Prizel, emp4506
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HoppersModelBenchmark {
+
+    /**
+     * The puzzle file.
+     */
+    private final static String FILE = "data/hoppers/hoppers-7.txt";
+
+    /**
+     * The model being timed.
+     */
+    private HoppersModel model;
+
+    /**
+     * The real System.out, put back when the benchmarks are done.
+     */
+    private PrintStream out;
+
+    /**
+     * Silences System.out, creates the model and waits for its solvability map.
+     *
+     * @throws IOException          Thrown if the puzzle file can't be read.
+     * @throws InterruptedException Thrown if the wait is interrupted.
+     */
+    @Setup
+    public void setup() throws IOException, InterruptedException {
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        model = new HoppersModel(FILE);
+        model.awaitSolvabilityMap();
+    }
+
+    /**
+     * Puts System.out back.
+     */
+    @TearDown
+    public void tearDown() {
+        System.setOut(out);
+    }
+
+    /**
+     * Puts the board back to its start, which also makes the model forget its solutions, before each hint.
+     */
+    @State(Scope.Benchmark)
+    public static class FreshBoard {
+
+        /**
+         * Resets the model, and waits in case the reset started building the solvability map again.
+         *
+         * @param bench The benchmark holding the model.
+         * @throws InterruptedException Thrown if the wait is interrupted.
+         */
+        @Setup(Level.Invocation)
+        public void reset(HoppersModelBenchmark bench) throws InterruptedException {
+            bench.model.reset(FILE);
+            bench.model.awaitSolvabilityMap();
+        }
+    }
+
+    /**
+     * Asks for a hint from the start of the board and waits for it.
+     *
+     * @param board Resets the board first.
+     * @return The first row of the board after the hint.
+     * @throws InterruptedException Thrown if the wait is interrupted.
+     * @throws ExecutionException   Thrown if the search failed.
+     */
+    @Benchmark
+    public char[] hint(FreshBoard board) throws InterruptedException, ExecutionException {
+        model.hint().get();
+        return model.getGrid()[0];
+    }
+
+    /**
+     * Selects a frog, gets the lilypads it could jump to like the GUI does, then tries a jump that isn't allowed.
+     *
+     * @return The lilypads the frog could jump to.
+     */
+    @Benchmark
+    public List<int[]> select() {
+        model.select(1, 1);
+        List<int[]> targets = model.getSolvableTargets();
+        model.select(0, 0);
+        return targets;
+    }
+}
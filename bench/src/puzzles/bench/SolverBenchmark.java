@@ -0,0 +1,157 @@
+package puzzles.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Solver;
+import puzzles.crossing.CrossingConfig;
+import puzzles.hoppers.model.HoppersConfig;
+import puzzles.strings.StringsConfig;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times a full BFS solve of every puzzle that has a checked in answer: data/hoppers/hoppers-0 to 9 and the crossing
+ * and strings cases in output/. Each solve uses a fresh {@link Solver}, just like the puzzle programs do.
+ *
+ * @author Evan Prizel, emp4506
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+
+    /**
+     * A Hoppers puzzle, read once before it is timed.
+     */
+    @State(Scope.Benchmark)
+    public static class HoppersCase {
+
+        /**
+         * The number of the puzzle file.
+         */
+        @Param({"0", "1", "2", "3", "4", "5", "6", "7", "8", "9"})
+        public String hoppers;
+
+        /**
+         * The starting configuration.
+         */
+        HoppersConfig start;
+
+        /**
+         * Reads the puzzle file.
+         *
+         * @throws IOException Thrown if the file can't be read.
+         */
+        @Setup
+        public void setup() throws IOException {
+            start = new HoppersConfig("data/hoppers/hoppers-" + hoppers + ".txt");
+        }
+    }
+
+    /**
+     * A Crossing puzzle.
+     */
+    @State(Scope.Benchmark)
+    public static class CrossingCase {
+
+        /**
+         * The pups and wolves, split by a space.
+         */
+        @Param({"0 1", "1 4", "2 0", "2 1", "3 2", "8 5", "95 73"})
+        public String crossing;
+
+        /**
+         * The starting and final configurations.
+         */
+        CrossingConfig start;
+        CrossingConfig finish;
+
+        /**
+         * Builds the configurations.
+         */
+        @Setup
+        public void setup() {
+            String[] animals = crossing.split(" ");
+            int pups = Integer.parseInt(animals[0]);
+            int wolves = Integer.parseInt(animals[1]);
+            start = new CrossingConfig(pups, wolves, 0, 0, 'L');
+            finish = new CrossingConfig(0, 0, pups, wolves, 'R');
+        }
+    }
+
+    /**
+     * A Strings puzzle.
+     */
+    @State(Scope.Benchmark)
+    public static class StringsCase {
+
+        /**
+         * The start and finish strings, split by a space.
+         */
+        @Param({"AB XD", "ABC BZD", "B !", "B Y", "CAT DOG", "MARCH APRIL", "P U"})
+        public String strings;
+
+        /**
+         * The starting and final configurations.
+         */
+        StringsConfig start;
+        StringsConfig finish;
+
+        /**
+         * Builds the configurations.
+         */
+        @Setup
+        public void setup() {
+            String[] words = strings.split(" ");
+            start = new StringsConfig(words[0], words[1]);
+            finish = new StringsConfig(words[1], words[1]);
+        }
+    }
+
+    /**
+     * Solves a Hoppers puzzle.
+     *
+     * @param state The puzzle.
+     * @return The path, so the solve isn't optimized away.
+     */
+    @Benchmark
+    public Collection<Configuration> hoppers(HoppersCase state) {
+        return new Solver().solve(state.start, null);
+    }
+
+    /**
+     * Solves a Crossing puzzle.
+     *
+     * @param state The puzzle.
+     * @return The path, so the solve isn't optimized away.
+     */
+    @Benchmark
+    public Collection<Configuration> crossing(CrossingCase state) {
+        return new Solver().solve(state.start, state.finish);
+    }
+
+    /**
+     * Solves a Strings puzzle.
+     *
+     * @param state The puzzle.
+     * @return The path, so the solve isn't optimized away.
+     */
+    @Benchmark
+    public Collection<Configuration> strings(StringsCase state) {
+        return new Solver().solve(state.start, state.finish);
+    }
+}
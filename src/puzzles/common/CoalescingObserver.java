@@ -0,0 +1,80 @@
+package puzzles.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * An observer that collects the updates it gets and passes them on in batches. The first update after a flush asks
+ * the executor to run a flush; every update that comes in before the flush runs joins the same batch. With
+ * Platform::runLater as the executor, any number of quick updates turn into one render on the next frame.
+ *
+ * @param <Subject>    the type of object being observed
+ * @param <ClientData> the type of the updates
+ * @author Evan Prizel, emp4506
+ */
+public class CoalescingObserver<Subject, ClientData> implements Observer<Subject, ClientData> {
+
+    /**
+     * Runs the flushes.
+     */
+    private final Executor flusher;
+
+    /**
+     * Gets each batch.
+     */
+    private final Observer<Subject, List<ClientData>> target;
+
+    /**
+     * The updates waiting for the next flush, and the subject they came from.
+     */
+    private List<ClientData> pending = new ArrayList<>();
+    private Subject subject;
+
+    /**
+     * Creates the observer.
+     *
+     * @param flusher Runs the flushes, for example Platform::runLater.
+     * @param target  Gets each batch of updates, oldest first.
+     */
+    public CoalescingObserver(Executor flusher, Observer<Subject, List<ClientData>> target) {
+        this.flusher = flusher;
+        this.target = target;
+    }
+
+    /**
+     * Adds the update to the batch, asking for a flush if the batch was empty.
+     *
+     * @param subject the object that wishes to inform this object about something that has happened.
+     * @param data    the update
+     */
+    @Override
+    public void update(Subject subject, ClientData data) {
+        boolean first;
+        synchronized (this) {
+            first = pending.isEmpty();
+            pending.add(data);
+            this.subject = subject;
+        }
+        if (first) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    /**
+     * Passes the waiting updates on as one batch.
+     */
+    public void flush() {
+        List<ClientData> batch;
+        Subject from;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            from = subject;
+            pending = new ArrayList<>();
+        }
+        target.update(from, batch);
+    }
+}
@@ -0,0 +1,156 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Solves the puzzle that is provided when the goal is known, using a BFS from the start and a BFS backwards from the
+ * goal until the two meet in the middle. The side with the smaller frontier is always the one expanded, one whole
+ * level at a time, so the path found is still a shortest one.
+ * <p>
+ * Without a goal, or when the configurations can't be reversed, it solves like {@link Solver}.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public class BidirectionalSolver extends Solver {
+
+    /**
+     * Where a search came from and how many moves away from its roots a configuration is.
+     *
+     * @param link  The configuration one move closer to the roots, null for a root.
+     * @param depth The number of moves from the roots.
+     */
+    private record Visit(Configuration link, int depth) {
+    }
+
+    /**
+     * Roughly what one {@link Visit} takes in memory.
+     */
+    private final static int VISIT_BYTES = 24;
+
+    /**
+     * Initializes the solver with a fresh number of totalConfigs.
+     */
+    public BidirectionalSolver() {
+        super();
+    }
+
+    /**
+     * BIDIRECTIONAL BFS SOLVER
+     * Searches from both ends when the final configuration is given.
+     *
+     * @param config      The initial configuration we start with.
+     * @param finalConfig The final configuration we are supposed to have.
+     * @return the path from the initial config to the final config
+     */
+    @Override
+    public Collection<Configuration> solve(Configuration config, Configuration finalConfig) {
+        if (finalConfig == null) {
+            return super.solve(config, null);
+        }
+        return solve(config, List.of(finalConfig));
+    }
+
+    /**
+     * BIDIRECTIONAL BFS SOLVER
+     * Searches from the start and backwards from all of the goals at once.
+     *
+     * @param config The initial configuration we start with.
+     * @param goals  The configurations to end at.
+     * @return the shortest path from the initial config to any of the goals
+     */
+    public Collection<Configuration> solve(Configuration config, Collection<? extends Configuration> goals) {
+        if (!(config instanceof ReversibleConfiguration)) {
+            return super.solve(config, null);
+        }
+        predecessors = null;
+        SolverStats stats = startStats();
+        Map<Configuration, Visit> forward = new HashMap<>();
+        Map<Configuration, Visit> backward = new HashMap<>();
+        List<Configuration> forwardLevel = new ArrayList<>();
+        List<Configuration> backwardLevel = new ArrayList<>();
+        forward.put(config, new Visit(null, 0));
+        forwardLevel.add(config);
+        totalConfigs++;
+        for (Configuration goal : goals) {
+            if (backward.putIfAbsent(goal, new Visit(null, 0)) == null) {
+                backwardLevel.add(goal);
+            }
+            totalConfigs++;
+        }
+        // the best meeting so far: the last forward configuration and the first backward configuration
+        Configuration[] meeting = null;
+        if (backward.containsKey(config)) {
+            meeting = new Configuration[]{config, config};
+        }
+        while (meeting == null && !forwardLevel.isEmpty() && !backwardLevel.isEmpty()) {
+            int best = Integer.MAX_VALUE;
+            List<Configuration> next = new ArrayList<>();
+            if (forwardLevel.size() <= backwardLevel.size()) {
+                stats.startLevel(forwardLevel.size());
+                for (Configuration currConfig : forwardLevel) {
+                    int depth = forward.get(currConfig).depth() + 1;
+                    stats.expanded();
+                    for (Configuration cne : currConfig.getNeighbors()) {
+                        totalConfigs++;
+                        Visit other = backward.get(cne);
+                        if (other != null && depth + other.depth() < best) {
+                            best = depth + other.depth();
+                            meeting = new Configuration[]{currConfig, cne};
+                        }
+                        boolean seen = forward.containsKey(cne);
+                        if (!seen) {
+                            forward.put(cne, new Visit(currConfig, depth));
+                            next.add(cne);
+                        }
+                        stats.generated(seen);
+                    }
+                }
+                forwardLevel = next;
+            } else {
+                stats.startLevel(backwardLevel.size());
+                for (Configuration currConfig : backwardLevel) {
+                    int depth = backward.get(currConfig).depth() + 1;
+                    stats.expanded();
+                    for (Configuration cne : ((ReversibleConfiguration) currConfig).getReverseNeighbors()) {
+                        totalConfigs++;
+                        Visit other = forward.get(cne);
+                        if (other != null && depth + other.depth() < best) {
+                            best = depth + other.depth();
+                            meeting = new Configuration[]{cne, currConfig};
+                        }
+                        boolean seen = backward.containsKey(cne);
+                        if (!seen) {
+                            backward.put(cne, new Visit(currConfig, depth));
+                            next.add(cne);
+                        }
+                        stats.generated(seen);
+                    }
+                }
+                backwardLevel = next;
+            }
+            stats.endLevel();
+        }
+        uniqueConfigs = forward.size() + backward.size();
+        stats.finish(meeting != null, (long) uniqueConfigs * (SolverStats.MAP_ENTRY_BYTES + VISIT_BYTES));
+        List<Configuration> path = new LinkedList<>();
+        if (meeting != null) {
+            for (Configuration currConfig = meeting[0]; currConfig != null;
+                 currConfig = forward.get(currConfig).link()) {
+                path.add(0, currConfig);
+            }
+            Configuration currConfig = meeting[1];
+            if (currConfig == meeting[0]) {
+                currConfig = backward.get(currConfig).link();
+            }
+            for (; currConfig != null; currConfig = backward.get(currConfig).link()) {
+                path.add(currConfig);
+            }
+        }
+        return path;
+    }
+}
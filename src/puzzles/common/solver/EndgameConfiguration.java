@@ -0,0 +1,30 @@
+package puzzles.common.solver;
+
+import java.util.List;
+
+/**
+ * A configuration of a puzzle that can sometimes tell how the puzzle ends from it without searching, for example by
+ * looking it up in a table of endgames worked out ahead of time. A search takes such a configuration as a solution
+ * when it can be finished and drops it when it can't, instead of searching below it.
+ * <p>
+ * The solvers stop at the first one they reach that can be finished, so the ending has to be as short as any other,
+ * which holds for puzzles where every way of solving a configuration takes the same number of moves.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public interface EndgameConfiguration extends Configuration {
+
+    /**
+     * Is it known, without searching, whether this configuration can be solved?
+     *
+     * @return True if yes, otherwise no.
+     */
+    boolean inEndgame();
+
+    /**
+     * Gets the rest of a shortest solution from this configuration. Only called when it is {@link #inEndgame()}.
+     *
+     * @return The configurations after this one, up to and including the solution, or null if it can't be solved.
+     */
+    List<Configuration> finishEndgame();
+}
@@ -0,0 +1,699 @@
+package puzzles.common.solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Solves the puzzle that is provided with a BFS that keeps its levels on disk instead of in memory, for puzzles
+ * whose configurations don't all fit in the heap.
+ * <p>
+ * Each level is a file of packed keys in sorted order, compressed. While a level is expanded, the neighbors' keys
+ * are collected in a buffer that starts small and doubles up to a limit; whenever it is full at the limit it is
+ * sorted and written out as a run. At the end of the level the runs are merged, which drops the repeats, and every
+ * key that is in an earlier level is dropped too by reading the earlier levels alongside, since they are sorted the
+ * same way. Only the levels that {@link KeyedConfiguration#repeatLevels()} says can hold a repeat are read, so a
+ * puzzle whose moves never lead back to an earlier level doesn't reread its whole history for every level. What is
+ * left is the next level. No parents are stored: once a solution is found, the path is rebuilt by scanning each
+ * earlier level for a configuration that has the next one on the path as a neighbor.
+ * <p>
+ * Only configurations that are a {@link KeyedConfiguration} can be stored this way; the others are solved like
+ * {@link Solver}. The path is a shortest one, but since a level is expanded in key order instead of the order it was
+ * found in, it can be a different shortest path than {@link Solver} finds.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public class ExternalSolver extends Solver {
+
+    /**
+     * When no run size is given, the buffer can grow to one part in this many of the heap.
+     */
+    private final static int HEAP_SHARE = 4;
+
+    /**
+     * The number of keys the buffer starts with.
+     */
+    private final static int INITIAL_RUN_KEYS = 1 << 12;
+
+    /**
+     * The most files merged at once. When there are more runs, they are merged in groups first.
+     */
+    private final static int FAN_IN = 64;
+
+    /**
+     * The size of the buffer behind every file that is read or written.
+     */
+    private final static int BUFFER_BYTES = 1 << 15;
+
+    /**
+     * The directory the temporary files go in.
+     */
+    private final Path workDir;
+
+    /**
+     * The number of keys buffered before a run is written.
+     */
+    private final int runKeys;
+
+    /**
+     * Initializes a solver that puts its files in the system's temporary directory and lets its buffer grow to a
+     * quarter of the heap.
+     */
+    public ExternalSolver() {
+        this(Paths.get(System.getProperty("java.io.tmpdir")), 0);
+    }
+
+    /**
+     * Initializes the solver.
+     *
+     * @param workDir The directory the temporary files go in. A directory of its own is made in it for each solve
+     *                and deleted afterwards.
+     * @param runKeys The most keys buffered before a run is written, which sets how much memory can be used. 0
+     *                lets the buffer grow to a quarter of the heap.
+     */
+    public ExternalSolver(Path workDir, int runKeys) {
+        super();
+        this.workDir = workDir;
+        this.runKeys = runKeys;
+    }
+
+    /**
+     * EXTERNAL MEMORY BFS SOLVER
+     * Expands one level at a time from the files on disk.
+     *
+     * @param config      The initial configuration we start with.
+     * @param finalConfig The final configuration we are supposed to have.
+     * @return the path from the initial config to a solution using BFS
+     * @throws UncheckedIOException Thrown if the temporary files can't be written or read.
+     */
+    @Override
+    public Collection<Configuration> solve(Configuration config, Configuration finalConfig) {
+        if (!(config instanceof KeyedConfiguration keyed)) {
+            return super.solve(config, finalConfig);
+        }
+        if (isDeadStart(config)) {
+            return new LinkedList<>();
+        }
+        predecessors = null;
+        RuntimeException failure = null;
+        Path dir = null;
+        try {
+            dir = Files.createTempDirectory(workDir, "bfs-");
+            return realign(search(keyed, dir), config);
+        } catch (IOException e) {
+            failure = new UncheckedIOException(e);
+            throw failure;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (dir != null) {
+                delete(dir, failure);
+            }
+        }
+    }
+
+    /**
+     * Runs the search with its files in the given directory.
+     *
+     * @param config The initial configuration.
+     * @param dir    The directory for the files.
+     * @return The path, which may hold representatives when symmetry is used.
+     * @throws IOException Thrown if a file can't be written or read.
+     */
+    private List<Configuration> search(KeyedConfiguration config, Path dir) throws IOException {
+        SolverStats stats = startStats();
+        int width = config.keyWidth();
+        long[] key = new long[width];
+        List<Path> levels = new ArrayList<>();
+        List<Long> sizes = new ArrayList<>();
+        Path first = dir.resolve("level-0");
+        try (KeyWriter out = new KeyWriter(first, width)) {
+            ((KeyedConfiguration) canonical(config)).writeKey(key, 0);
+            out.write(key, 0);
+        }
+        levels.add(first);
+        sizes.add(1L);
+        totalConfigs = 1;
+        long unique = 1;
+        int runKeys = this.runKeys;
+        if (runKeys <= 0) {
+            runKeys = (int) Math.min(Integer.MAX_VALUE / width,
+                    Runtime.getRuntime().maxMemory() / HEAP_SHARE / ((long) Long.BYTES * width));
+        }
+        long[] buffer = new long[Math.min(runKeys, INITIAL_RUN_KEYS) * width];
+        int repeatLevels = config.repeatLevels();
+        long[] solution = null;
+        while (solution == null && sizes.get(sizes.size() - 1) > 0) {
+            int depth = levels.size() - 1;
+            stats.startLevel((int) Math.min(Integer.MAX_VALUE, sizes.get(depth)));
+            List<Path> runs = new ArrayList<>();
+            int buffered = 0;
+            long expanded = 0;
+            long generated = 0;
+            try (KeyReader in = new KeyReader(levels.get(depth), width, sizes.get(depth))) {
+                while (in.next()) {
+                    Configuration currConfig = config.fromKey(in.key, 0);
+                    if (currConfig.isSolution()) {
+                        solution = in.key.clone();
+                        break;
+                    }
+                    ++expanded;
+                    for (Configuration cne : currConfig.getNeighbors()) {
+                        ++totalConfigs;
+                        if (isPruned(cne)) {
+                            continue;
+                        }
+                        ((KeyedConfiguration) canonical(cne)).writeKey(buffer, buffered * width);
+                        ++buffered;
+                        ++generated;
+                        if (buffered == runKeys) {
+                            runs.add(writeRun(dir, runs.size(), buffer, buffered, width));
+                            buffered = 0;
+                        } else if (buffered * width == buffer.length) {
+                            buffer = Arrays.copyOf(buffer, (int) Math.min(2L * buffered, runKeys) * width);
+                        }
+                    }
+                }
+            }
+            if (solution == null) {
+                if (buffered > 0) {
+                    runs.add(writeRun(dir, runs.size(), buffer, buffered, width));
+                }
+                Path next = dir.resolve("level-" + (depth + 1));
+                int from = Math.max(0, levels.size() - repeatLevels);
+                long size = mergeNewKeys(dir, runs, levels.subList(from, levels.size()),
+                        sizes.subList(from, sizes.size()), next, width);
+                levels.add(next);
+                sizes.add(size);
+                unique += size;
+                stats.add(expanded, generated, generated - size);
+            } else {
+                stats.add(expanded, generated, 0);
+            }
+            stats.endLevel();
+        }
+        uniqueConfigs = (int) Math.min(Integer.MAX_VALUE, unique);
+        List<Configuration> path = solution == null ? new LinkedList<>() : rebuildPath(config, solution, levels,
+                sizes, width);
+        long diskBytes = 0;
+        for (Path level : levels) {
+            diskBytes += Files.size(level);
+        }
+        stats.finish(solution != null, (long) buffer.length * Long.BYTES, diskBytes);
+        return path;
+    }
+
+    /**
+     * Sorts the buffered keys, drops the repeats and writes them out as a run.
+     *
+     * @param dir      The directory for the files.
+     * @param number   The number of the run within its level.
+     * @param buffer   The keys.
+     * @param buffered The number of keys in the buffer.
+     * @param width    The number of longs in a key.
+     * @return The run's file.
+     * @throws IOException Thrown if the file can't be written.
+     */
+    private static Path writeRun(Path dir, int number, long[] buffer, int buffered, int width) throws IOException {
+        if (width == 1) {
+            Arrays.sort(buffer, 0, buffered);
+        } else {
+            sort(buffer, 0, buffered - 1, width);
+        }
+        Path run = dir.resolve("run-" + number);
+        try (KeyWriter out = new KeyWriter(run, width)) {
+            for (int i = 0; i < buffered; ++i) {
+                if (i == 0 || compare(buffer, i * width, buffer, (i - 1) * width, width) != 0) {
+                    out.write(buffer, i * width);
+                }
+            }
+        }
+        return run;
+    }
+
+    /**
+     * Merges the runs of a level into the next level, leaving out every key that is in one of the given earlier
+     * levels. The runs are deleted afterwards.
+     *
+     * @param dir    The directory for the files.
+     * @param runs   The runs, each sorted without repeats.
+     * @param levels The earlier levels that can hold repeats.
+     * @param sizes  The number of keys in each of those levels.
+     * @param next   The file for the next level.
+     * @param width  The number of longs in a key.
+     * @return The number of keys in the next level.
+     * @throws IOException Thrown if a file can't be written or read.
+     */
+    private static long mergeNewKeys(Path dir, List<Path> runs, List<Path> levels, List<Long> sizes, Path next,
+                                     int width) throws IOException {
+        List<Long> runSizes = new ArrayList<>();
+        for (Path run : runs) {
+            runSizes.add(-1L);
+        }
+        // merge in groups until the rest can be opened at once
+        int extra = 0;
+        while (runs.size() > FAN_IN) {
+            Path merged = dir.resolve("merged-" + extra++);
+            long size;
+            try (KeyWriter out = new KeyWriter(merged, width)) {
+                size = merge(runs.subList(0, FAN_IN), runSizes.subList(0, FAN_IN), List.of(), List.of(), out,
+                        width);
+            }
+            for (Path run : runs.subList(0, FAN_IN)) {
+                Files.delete(run);
+            }
+            runs = new ArrayList<>(runs.subList(FAN_IN, runs.size()));
+            runSizes = new ArrayList<>(runSizes.subList(FAN_IN, runSizes.size()));
+            runs.add(merged);
+            runSizes.add(size);
+        }
+        long size;
+        try (KeyWriter out = new KeyWriter(next, width)) {
+            size = merge(runs, runSizes, levels, sizes, out, width);
+        }
+        for (Path run : runs) {
+            Files.delete(run);
+        }
+        return size;
+    }
+
+    /**
+     * Merges sorted files into one without repeats, leaving out the keys that are in any of the excluded files.
+     *
+     * @param files         The files to merge.
+     * @param fileSizes     The number of keys in each file, -1 to read to the end.
+     * @param excluded      The sorted files whose keys are left out.
+     * @param excludedSizes The number of keys in each excluded file.
+     * @param out           Where the merged keys go.
+     * @param width         The number of longs in a key.
+     * @return The number of keys written.
+     * @throws IOException Thrown if a file can't be written or read.
+     */
+    private static long merge(List<Path> files, List<Long> fileSizes, List<Path> excluded, List<Long> excludedSizes,
+                              KeyWriter out, int width) throws IOException {
+        List<KeyReader> open = new ArrayList<>();
+        try {
+            PriorityQueue<KeyReader> heads = new PriorityQueue<>((a, b) -> compare(a.key, 0, b.key, 0, width));
+            for (int i = 0; i < files.size(); ++i) {
+                KeyReader reader = new KeyReader(files.get(i), width, fileSizes.get(i));
+                open.add(reader);
+                if (reader.next()) {
+                    heads.add(reader);
+                }
+            }
+            List<KeyReader> earlier = new ArrayList<>();
+            for (int i = 0; i < excluded.size(); ++i) {
+                KeyReader reader = new KeyReader(excluded.get(i), width, excludedSizes.get(i));
+                open.add(reader);
+                if (reader.next()) {
+                    earlier.add(reader);
+                }
+            }
+            long[] last = null;
+            long written = 0;
+            while (!heads.isEmpty()) {
+                KeyReader reader = heads.poll();
+                long[] key = reader.key;
+                if (last == null || compare(key, 0, last, 0, width) != 0) {
+                    if (last == null) {
+                        last = new long[width];
+                    }
+                    System.arraycopy(key, 0, last, 0, width);
+                    if (!seenBefore(earlier, key, width)) {
+                        out.write(key, 0);
+                        ++written;
+                    }
+                }
+                if (reader.next()) {
+                    heads.add(reader);
+                }
+            }
+            return written;
+        } finally {
+            for (KeyReader reader : open) {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Moves each earlier level up to the key and checks if any of them holds it. The keys come in sorted order, so
+     * every level is read only once per merge.
+     *
+     * @param earlier The readers of the earlier levels that still have keys.
+     * @param key     The key.
+     * @param width   The number of longs in a key.
+     * @return True if an earlier level holds the key, otherwise false.
+     * @throws IOException Thrown if a file can't be read.
+     */
+    private static boolean seenBefore(List<KeyReader> earlier, long[] key, int width) throws IOException {
+        boolean seen = false;
+        for (int i = earlier.size() - 1; i >= 0; --i) {
+            KeyReader reader = earlier.get(i);
+            int order = compare(reader.key, 0, key, 0, width);
+            while (order < 0) {
+                if (!reader.next()) {
+                    earlier.remove(i);
+                    break;
+                }
+                order = compare(reader.key, 0, key, 0, width);
+            }
+            if (order == 0) {
+                seen = true;
+            }
+        }
+        return seen;
+    }
+
+    /**
+     * Rebuilds the path back from the solution. For each level, from the one before the solution back to the start,
+     * the level is scanned for the first configuration that has the next one on the path as a neighbor.
+     *
+     * @param config   The initial configuration.
+     * @param solution The key of the solution.
+     * @param levels   The levels.
+     * @param sizes    The number of keys in each level.
+     * @param width    The number of longs in a key.
+     * @return The path from the start to the solution.
+     * @throws IOException Thrown if a file can't be read.
+     */
+    private List<Configuration> rebuildPath(KeyedConfiguration config, long[] solution, List<Path> levels,
+                                            List<Long> sizes, int width) throws IOException {
+        LinkedList<Configuration> path = new LinkedList<>();
+        long[] target = solution;
+        long[] key = new long[width];
+        for (int depth = levels.size() - 2; depth >= 0; --depth) {
+            path.addFirst(config.fromKey(target, 0));
+            long[] parent = null;
+            try (KeyReader in = new KeyReader(levels.get(depth), width, sizes.get(depth))) {
+                while (parent == null && in.next()) {
+                    for (Configuration cne : config.fromKey(in.key, 0).getNeighbors()) {
+                        ((KeyedConfiguration) canonical(cne)).writeKey(key, 0);
+                        if (compare(key, 0, target, 0, width) == 0) {
+                            parent = in.key.clone();
+                            break;
+                        }
+                    }
+                }
+            }
+            target = parent;
+        }
+        path.addFirst(config);
+        return path;
+    }
+
+    /**
+     * Compares two keys word by word.
+     *
+     * @param a     The array holding the first key.
+     * @param ao    The index of the first key's first long.
+     * @param b     The array holding the second key.
+     * @param bo    The index of the second key's first long.
+     * @param width The number of longs in a key.
+     * @return Less than 0, 0 or more than 0 as the first key is less than, equal to or more than the second.
+     */
+    private static int compare(long[] a, int ao, long[] b, int bo, int width) {
+        for (int i = 0; i < width; ++i) {
+            int order = Long.compare(a[ao + i], b[bo + i]);
+            if (order != 0) {
+                return order;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Sorts the keys from lo to hi, both included, with a three way quicksort that swaps whole keys. The keys equal
+     * to the pivot are gathered in the middle and left out of both sides, so a run that repeats a few keys many
+     * times doesn't make it quadratic.
+     *
+     * @param keys  The keys, one after another.
+     * @param lo    The first key to sort.
+     * @param hi    The last key to sort.
+     * @param width The number of longs in a key.
+     */
+    private static void sort(long[] keys, int lo, int hi, int width) {
+        while (lo < hi) {
+            swap(keys, lo, (lo + hi) >>> 1, width);
+            // less than the pivot before lt, equal from lt up to i, more than it after gt
+            int lt = lo;
+            int gt = hi;
+            int i = lo + 1;
+            while (i <= gt) {
+                int order = compare(keys, i * width, keys, lt * width, width);
+                if (order < 0) {
+                    swap(keys, lt++, i++, width);
+                } else if (order > 0) {
+                    swap(keys, i, gt--, width);
+                } else {
+                    ++i;
+                }
+            }
+            // recurse into the smaller side so the stack stays shallow
+            if (lt - lo < hi - gt) {
+                sort(keys, lo, lt - 1, width);
+                lo = gt + 1;
+            } else {
+                sort(keys, gt + 1, hi, width);
+                hi = lt - 1;
+            }
+        }
+    }
+
+    /**
+     * Swaps two keys.
+     *
+     * @param keys  The keys, one after another.
+     * @param i     The first key.
+     * @param j     The second key.
+     * @param width The number of longs in a key.
+     */
+    private static void swap(long[] keys, int i, int j, int width) {
+        for (int w = 0; w < width; ++w) {
+            long temp = keys[i * width + w];
+            keys[i * width + w] = keys[j * width + w];
+            keys[j * width + w] = temp;
+        }
+    }
+
+    /**
+     * Deletes a directory and everything in it. Every file is tried even when one can't be deleted, and the first
+     * problem is thrown once the rest are gone. When the search itself failed, the problem is added to that failure
+     * instead, so it doesn't hide why the search stopped.
+     *
+     * @param dir     The directory.
+     * @param failure What the search threw, null if it finished.
+     * @throws UncheckedIOException Thrown if something couldn't be deleted after a search that finished.
+     */
+    private static void delete(Path dir, RuntimeException failure) {
+        IOException problem = null;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    problem = collect(problem, e);
+                }
+            }
+        } catch (IOException e) {
+            problem = collect(problem, e);
+        } catch (UncheckedIOException e) {
+            problem = collect(problem, e.getCause());
+        }
+        try {
+            Files.deleteIfExists(dir);
+        } catch (IOException e) {
+            problem = collect(problem, e);
+        }
+        if (problem != null) {
+            if (failure == null) {
+                throw new UncheckedIOException(problem);
+            }
+            failure.addSuppressed(problem);
+        }
+    }
+
+    /**
+     * Keeps the first of several problems, with the later ones added to it.
+     *
+     * @param first The first problem, null if there wasn't one yet.
+     * @param next  The problem that just happened.
+     * @return The first problem.
+     */
+    private static IOException collect(IOException first, IOException next) {
+        if (first == null) {
+            return next;
+        }
+        first.addSuppressed(next);
+        return first;
+    }
+
+    /**
+     * Writes sorted keys to a compressed file. The first long of each key is stored as the difference from the
+     * first long of the key before it, which is small since the keys are sorted and so compresses well.
+     */
+    private static final class KeyWriter implements Closeable {
+
+        /**
+         * The compressor, which has to be released by hand.
+         */
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        /**
+         * The file.
+         */
+        private final DataOutputStream out;
+
+        /**
+         * The number of longs in a key.
+         */
+        private final int width;
+
+        /**
+         * The first long of the last key written.
+         */
+        private long previous;
+
+        /**
+         * Creates the file.
+         *
+         * @param file  The file.
+         * @param width The number of longs in a key.
+         * @throws IOException Thrown if the file can't be created.
+         */
+        private KeyWriter(Path file, int width) throws IOException {
+            this.width = width;
+            out = new DataOutputStream(new BufferedOutputStream(
+                    new DeflaterOutputStream(Files.newOutputStream(file), deflater, BUFFER_BYTES), BUFFER_BYTES));
+        }
+
+        /**
+         * Writes a key, which must not be less than the last one.
+         *
+         * @param key    The array holding the key.
+         * @param offset The index of the key's first long.
+         * @throws IOException Thrown if the file can't be written.
+         */
+        private void write(long[] key, int offset) throws IOException {
+            out.writeLong(key[offset] - previous);
+            previous = key[offset];
+            for (int i = 1; i < width; ++i) {
+                out.writeLong(key[offset + i]);
+            }
+        }
+
+        /**
+         * Finishes the file.
+         *
+         * @throws IOException Thrown if the file can't be written.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                out.close();
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Reads the keys back from a file written by a {@link KeyWriter}.
+     */
+    private static final class KeyReader implements Closeable {
+
+        /**
+         * The decompressor, which has to be released by hand.
+         */
+        private final Inflater inflater = new Inflater();
+
+        /**
+         * The file.
+         */
+        private final DataInputStream in;
+
+        /**
+         * The number of keys left, negative to read to the end of the file.
+         */
+        private long left;
+
+        /**
+         * The key that was read last.
+         */
+        private final long[] key;
+
+        /**
+         * Opens the file.
+         *
+         * @param file  The file.
+         * @param width The number of longs in a key.
+         * @param size  The number of keys in the file, -1 to read to the end.
+         * @throws IOException Thrown if the file can't be opened.
+         */
+        private KeyReader(Path file, int width, long size) throws IOException {
+            key = new long[width];
+            left = size;
+            in = new DataInputStream(new BufferedInputStream(
+                    new InflaterInputStream(Files.newInputStream(file), inflater, BUFFER_BYTES), BUFFER_BYTES));
+        }
+
+        /**
+         * Reads the next key into {@link #key}.
+         *
+         * @return True if there was a key, false at the end of the file.
+         * @throws IOException Thrown if the file can't be read.
+         */
+        private boolean next() throws IOException {
+            if (left == 0) {
+                return false;
+            }
+            long first;
+            try {
+                first = in.readLong();
+            } catch (EOFException e) {
+                left = 0;
+                return false;
+            }
+            key[0] += first;
+            for (int i = 1; i < key.length; ++i) {
+                key[i] = in.readLong();
+            }
+            --left;
+            return true;
+        }
+
+        /**
+         * Closes the file.
+         *
+         * @throws IOException Thrown if the file can't be closed.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                in.close();
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+}
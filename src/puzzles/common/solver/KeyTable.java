@@ -0,0 +1,182 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash table of fixed width keys, each with the index of the entry it was reached from.
+ * Entries are numbered in the order they are added and are never removed, so a BFS can use the entries themselves as
+ * its queue. Only primitive arrays are used, which takes a fraction of the memory of a HashMap of configurations.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public class KeyTable {
+
+    /**
+     * The number of longs in each key.
+     */
+    private final int width;
+
+    /**
+     * The keys of all the entries, entry i being keys[i * width] to keys[i * width + width - 1].
+     */
+    private long[] keys;
+
+    /**
+     * The entry each entry was reached from, -1 for none.
+     */
+    private int[] parents;
+
+    /**
+     * The hash slots, each holding an entry index + 1 or 0 when it is empty.
+     */
+    private int[] slots;
+
+    /**
+     * The number of entries.
+     */
+    private int size;
+
+    /**
+     * Creates an empty table.
+     *
+     * @param width The number of longs in each key.
+     */
+    public KeyTable(int width) {
+        this.width = width;
+        this.keys = new long[16 * width];
+        this.parents = new int[16];
+        this.slots = new int[32];
+        this.size = 0;
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the entry with the given key.
+     *
+     * @param key    The array holding the key.
+     * @param offset The index of the first long of the key.
+     * @return The index of the entry, or -1 if the key isn't in the table.
+     */
+    public int find(long[] key, int offset) {
+        int mask = slots.length - 1;
+        for (int i = hash(key, offset) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            if (matches(slots[i] - 1, key, offset)) {
+                return slots[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds the key if it isn't in the table yet.
+     *
+     * @param key    The array holding the key.
+     * @param offset The index of the first long of the key.
+     * @param parent The entry the key was reached from, -1 for none.
+     * @return The index of the new entry, or -1 if the key was already in the table.
+     */
+    public int add(long[] key, int offset, int parent) {
+        int mask = slots.length - 1;
+        int i = hash(key, offset) & mask;
+        for (; slots[i] != 0; i = (i + 1) & mask) {
+            if (matches(slots[i] - 1, key, offset)) {
+                return -1;
+            }
+        }
+        if (size == parents.length) {
+            int capacity = parents.length * 2;
+            if (capacity < 0) {
+                throw new IllegalStateException("Too many keys for one table");
+            }
+            parents = Arrays.copyOf(parents, capacity);
+            keys = Arrays.copyOf(keys, capacity * width);
+        }
+        int entry = size++;
+        System.arraycopy(key, offset, keys, entry * width, width);
+        parents[entry] = parent;
+        slots[i] = entry + 1;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return entry;
+    }
+
+    /**
+     * Gets the entry the given entry was reached from.
+     *
+     * @param entry The index of the entry.
+     * @return The index of the parent entry, -1 for none.
+     */
+    public int parent(int entry) {
+        return parents[entry];
+    }
+
+    /**
+     * Copies the key of an entry into the given array.
+     *
+     * @param entry  The index of the entry.
+     * @param key    The array the key is copied to.
+     * @param offset The index the first long is copied to.
+     */
+    public void key(int entry, long[] key, int offset) {
+        System.arraycopy(keys, entry * width, key, offset, width);
+    }
+
+    /**
+     * Estimates the number of bytes the table is holding on to.
+     *
+     * @return The estimate in bytes.
+     */
+    public long memoryBytes() {
+        return 8L * keys.length + 4L * parents.length + 4L * slots.length;
+    }
+
+    /**
+     * Does the entry have the given key?
+     */
+    private boolean matches(int entry, long[] key, int offset) {
+        int start = entry * width;
+        for (int i = 0; i < width; ++i) {
+            if (keys[start + i] != key[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Mixes all the longs of a key into a hash.
+     */
+    private int hash(long[] key, int offset) {
+        long h = 0;
+        for (int i = 0; i < width; ++i) {
+            h = (h ^ key[offset + i]) * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 29;
+        }
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Doubles the number of hash slots and puts every entry back in.
+     */
+    private void rehash() {
+        int[] bigger = new int[slots.length * 2];
+        int mask = bigger.length - 1;
+        for (int entry = 0; entry < size; ++entry) {
+            int i = hash(keys, entry * width) & mask;
+            while (bigger[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            bigger[i] = entry + 1;
+        }
+        slots = bigger;
+    }
+}
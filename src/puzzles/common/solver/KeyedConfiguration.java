@@ -0,0 +1,47 @@
+package puzzles.common.solver;
+
+/**
+ * A configuration that can be packed into a fixed number of longs and rebuilt from them. The solver uses this to
+ * store the configurations it has seen in a {@link KeyTable} instead of keeping every configuration object alive.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public interface KeyedConfiguration extends Configuration {
+
+    /**
+     * Gets the number of longs in the key. Every configuration reachable from this one must use the same width.
+     *
+     * @return The width of the key.
+     */
+    int keyWidth();
+
+    /**
+     * Packs this configuration into the given array. Two configurations have the same key if and only if they are
+     * equal.
+     *
+     * @param key    The array the key is written to.
+     * @param offset The index of the first long of the key.
+     */
+    void writeKey(long[] key, int offset);
+
+    /**
+     * Rebuilds a configuration from a key that was written by a configuration reachable from this one.
+     *
+     * @param key    The array the key is read from.
+     * @param offset The index of the first long of the key.
+     * @return The configuration the key was made from.
+     */
+    Configuration fromKey(long[] key, int offset);
+
+    /**
+     * Gets how many levels of a BFS, counted back from the one being expanded, can already hold a neighbor of one of
+     * its configurations. A search that keeps its levels on disk only checks those for repeats. If every move can be
+     * undone by another move it is 2, the level being expanded and the one before it, and if no configuration can be
+     * reached at two different depths it is 0. By default every earlier level is checked.
+     *
+     * @return The number of levels to check.
+     */
+    default int repeatLevels() {
+        return Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,18 @@
+package puzzles.common.solver;
+
+/**
+ * A configuration that can also be searched in place. Instead of making a new configuration for every neighbor, the
+ * search works on one {@link MutableState}: it lists the moves as numbers, makes a move, looks at the result and
+ * takes the move back. A configuration object is only made for the states on the path that is returned.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public interface MutableConfiguration extends Configuration {
+
+    /**
+     * Creates a mutable copy of this configuration.
+     *
+     * @return The new state, which starts out equal to this configuration.
+     */
+    MutableState newState();
+}
@@ -0,0 +1,79 @@
+package puzzles.common.solver;
+
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A BFS that searches a {@link MutableConfiguration} in place. One state is moved around the whole search: each
+ * configuration of the queue is read back into it from the {@link KeyTable}, and each move is made, packed into a
+ * key and taken back again. Nothing is allocated for a neighbor unless it is new and the key table has to grow, and
+ * configuration objects are only made for the path.
+ * <p>
+ * The moves come in the same order as the neighbors, so the counts and the path are the same as {@link Solver}'s.
+ * Other configurations, and searches with symmetry or pruning turned on, are handed to {@link Solver}.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public class MutableSolver extends Solver {
+
+    /**
+     * BFS SOLVER
+     * Searches in place when the configuration supports it.
+     *
+     * @param config      The initial configuration we start with.
+     * @param finalConfig The final configuration we are supposed to have.
+     * @return the path from the initial config to a solution using BFS
+     */
+    @Override
+    public Collection<Configuration> solve(Configuration config, Configuration finalConfig) {
+        if (!(config instanceof MutableConfiguration mutable) || isSymmetry() || isPruning()) {
+            return super.solve(config, finalConfig);
+        }
+        predecessors = null;
+        SolverStats stats = startStats();
+        MutableState state = mutable.newState();
+        KeyTable table = new KeyTable(state.keyWidth());
+        long[] key = new long[state.keyWidth()];
+        int[] moves = new int[state.maxMoves()];
+        state.writeKey(key, 0);
+        table.add(key, 0, -1);
+        totalConfigs++;
+        int solution = -1;
+        int levelEnd = 0;
+        for (int head = 0; head < table.size(); ++head) {
+            if (head == levelEnd) {
+                stats.endLevel();
+                stats.startLevel(table.size() - head);
+                levelEnd = table.size();
+            }
+            table.key(head, key, 0);
+            state.readKey(key, 0);
+            if (state.isSolution()) {
+                solution = head;
+                break;
+            }
+            stats.expanded();
+            int count = state.moves(moves);
+            for (int i = 0; i < count; ++i) {
+                state.apply(moves[i]);
+                state.writeKey(key, 0);
+                stats.generated(table.add(key, 0, head) < 0);
+                state.undo(moves[i]);
+                totalConfigs++;
+            }
+        }
+        uniqueConfigs = table.size();
+        stats.finish(solution >= 0, table.memoryBytes());
+        List<Configuration> path = new LinkedList<>();
+        for (int entry = solution; entry > 0; entry = table.parent(entry)) {
+            table.key(entry, key, 0);
+            state.readKey(key, 0);
+            path.add(0, state.snapshot());
+        }
+        if (solution >= 0) {
+            path.add(0, config);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,78 @@
+package puzzles.common.solver;
+
+/**
+ * A puzzle state that is changed in place. The moves are numbers that only the state understands; a move made with
+ * {@link #apply(int)} is taken back with {@link #undo(int)}. The moves are listed in the same order as the neighbors
+ * of the matching {@link Configuration}, so a search over states finds the same path as a search over
+ * configurations.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public interface MutableState {
+
+    /**
+     * Gets the most moves any state of this puzzle can have.
+     *
+     * @return The size the array passed to {@link #moves(int[])} needs.
+     */
+    int maxMoves();
+
+    /**
+     * Lists the moves that can be made from the current state.
+     *
+     * @param moves The array the moves are written to, at least {@link #maxMoves()} long.
+     * @return The number of moves written.
+     */
+    int moves(int[] moves);
+
+    /**
+     * Makes a move.
+     *
+     * @param move One of the moves listed for the current state.
+     */
+    void apply(int move);
+
+    /**
+     * Takes back the last move that was made.
+     *
+     * @param move The move that was made.
+     */
+    void undo(int move);
+
+    /**
+     * Is the current state a solution?
+     *
+     * @return True if yes, otherwise no.
+     */
+    boolean isSolution();
+
+    /**
+     * Gets the number of longs in the key. Every state of the puzzle uses the same width.
+     *
+     * @return The width of the key.
+     */
+    int keyWidth();
+
+    /**
+     * Packs the current state into the given array. Two states have the same key if and only if they are equal.
+     *
+     * @param key    The array the key is written to.
+     * @param offset The index of the first long of the key.
+     */
+    void writeKey(long[] key, int offset);
+
+    /**
+     * Changes the current state to the one a key was made from.
+     *
+     * @param key    The array the key is read from.
+     * @param offset The index of the first long of the key.
+     */
+    void readKey(long[] key, int offset);
+
+    /**
+     * Makes a configuration that is equal to the current state and doesn't change with it.
+     *
+     * @return The configuration.
+     */
+    Configuration snapshot();
+}
@@ -0,0 +1,294 @@
+package puzzles.common.solver;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Solves the puzzle that is provided, using a level by level BFS where each level is expanded on all cores.
+ * <p>
+ * Every configuration found on the next level is tagged with the position of its parent in the current level and
+ * its own position among the parent's neighbors. Keeping the smallest tag and sorting the next level by it gives the
+ * exact queue order of {@link Solver}, so both find the same path with the same config counts. The new configurations
+ * of a level are gathered in a ConcurrentHashMap, which locks each bin on its own so threads rarely wait on each
+ * other. The predecessor map is only written between levels, so the threads read it without locking.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public class ParallelSolver extends Solver {
+
+    /**
+     * The number of configurations one task handles before it stops splitting.
+     */
+    private static final int THRESHOLD = 64;
+
+    /**
+     * The number of threads to expand a level with.
+     */
+    private final int parallelism;
+
+    /**
+     * Initializes the solver to use every core.
+     */
+    public ParallelSolver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Initializes the solver with the given number of threads.
+     *
+     * @param parallelism The number of threads.
+     */
+    public ParallelSolver(int parallelism) {
+        super();
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * PARALLEL BFS SOLVER
+     * Expands one level at a time. When a level holds a solution, only the configurations in front of it are
+     * expanded, just like the sequential queue would have done before reaching it.
+     *
+     * @param config      The initial configuration we start with.
+     * @param finalConfig The final configuration we are supposed to have.
+     * @return the path from the initial config to the final config using BFS
+     */
+    @Override
+    public Collection<Configuration> solve(Configuration config, Configuration finalConfig) {
+        if (isDeadStart(config)) {
+            return new LinkedList<>();
+        }
+        SolverStats stats = startStats();
+        Configuration startConfig = canonical(config);
+        Map<Configuration, Configuration> visited = new HashMap<>();
+        visited.put(startConfig, null);
+        predecessors = visited;
+        totalConfigs++;
+        Configuration solution = null;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // the start is expanded as given, like Solver does, so its neighbors come in the same order
+            List<Configuration> level = List.of(config);
+            while (!level.isEmpty()) {
+                stats.startLevel(level.size());
+                int first = pool.invoke(new SolutionTask(level, 0, level.size()));
+                int limit = first < 0 ? level.size() : first;
+                ConcurrentHashMap<Configuration, Long> found = new ConcurrentHashMap<>();
+                LongAdder generated = new LongAdder();
+                ConcurrentHashMap<String, LongAdder> pruned = new ConcurrentHashMap<>();
+                pool.invoke(new ExpandTask(level, 0, limit, visited, found, generated, pruned));
+                totalConfigs += generated.intValue();
+                long kept = generated.sum();
+                for (Map.Entry<String, LongAdder> rule : pruned.entrySet()) {
+                    stats.pruned(rule.getKey(), rule.getValue().sum());
+                    kept -= rule.getValue().sum();
+                }
+                List<Configuration> next = nextLevel(level, found, visited);
+                // every neighbor that wasn't pruned and didn't make it onto the next level had already been seen
+                stats.add(limit, kept, kept - next.size());
+                stats.endLevel();
+                if (first >= 0) {
+                    solution = level.get(first);
+                    break;
+                }
+                level = next;
+            }
+        } finally {
+            pool.shutdown();
+        }
+        uniqueConfigs = visited.size();
+        stats.finish(solution != null, (long) uniqueConfigs * SolverStats.MAP_ENTRY_BYTES);
+        List<Configuration> path = new LinkedList<>();
+        if (solution != null) {
+            for (Configuration currConfig = solution; currConfig != null; currConfig = visited.get(currConfig)) {
+                path.add(0, currConfig);
+            }
+        }
+        return realign(path, config);
+    }
+
+    /**
+     * Puts the newly found configurations in queue order and records their parents.
+     *
+     * @param level   The level that was expanded.
+     * @param found   The new configurations, each with its smallest tag.
+     * @param visited The predecessor map.
+     * @return The next level in queue order.
+     */
+    private static List<Configuration> nextLevel(List<Configuration> level, Map<Configuration, Long> found,
+                                                 Map<Configuration, Configuration> visited) {
+        List<Map.Entry<Configuration, Long>> entries = new ArrayList<>(found.entrySet());
+        entries.sort(Map.Entry.comparingByValue());
+        List<Configuration> next = new ArrayList<>(entries.size());
+        for (Map.Entry<Configuration, Long> entry : entries) {
+            visited.put(entry.getKey(), level.get((int) (entry.getValue() >>> 32)));
+            next.add(entry.getKey());
+        }
+        return next;
+    }
+
+    /**
+     * Finds the position of the first solution in part of a level.
+     */
+    private static class SolutionTask extends RecursiveTask<Integer> {
+
+        /**
+         * The version of the serialized form, which is never used since tasks aren't serialized.
+         */
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The level being searched.
+         */
+        private final List<Configuration> level;
+
+        /**
+         * The part of the level this task searches, from lo up to but not including hi.
+         */
+        private final int lo;
+        private final int hi;
+
+        /**
+         * Creates the task.
+         *
+         * @param level The level being searched.
+         * @param lo    The first position to search.
+         * @param hi    One past the last position to search.
+         */
+        private SolutionTask(List<Configuration> level, int lo, int hi) {
+            this.level = level;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        /**
+         * Searches the part of the level, splitting it in half while it is big.
+         *
+         * @return The position of the first solution, -1 if there is none.
+         */
+        @Override
+        protected Integer compute() {
+            if (hi - lo <= THRESHOLD) {
+                for (int i = lo; i < hi; ++i) {
+                    if (level.get(i).isSolution()) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+            int mid = (lo + hi) >>> 1;
+            SolutionTask right = new SolutionTask(level, mid, hi);
+            right.fork();
+            int left = new SolutionTask(level, lo, mid).compute();
+            int rightResult = right.join();
+            return left >= 0 ? left : rightResult;
+        }
+    }
+
+    /**
+     * Expands part of a level, tagging each new configuration with (parent position << 32 | neighbor position). With
+     * symmetry turned on the neighbors are replaced by their representatives before they are looked up, and with
+     * pruning turned on the ones proven dead are dropped and counted by rule.
+     */
+    private class ExpandTask extends RecursiveAction {
+
+        /**
+         * The version of the serialized form, which is never used since tasks aren't serialized.
+         */
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The level being expanded.
+         */
+        private final List<Configuration> level;
+
+        /**
+         * The part of the level this task expands, from lo up to but not including hi.
+         */
+        private final int lo;
+        private final int hi;
+
+        /**
+         * The configurations seen on earlier levels.
+         */
+        private final Map<Configuration, Configuration> visited;
+
+        /**
+         * The new configurations with their smallest tag.
+         */
+        private final ConcurrentHashMap<Configuration, Long> found;
+
+        /**
+         * The number of neighbors generated.
+         */
+        private final LongAdder generated;
+
+        /**
+         * The number of neighbors each rule proved dead.
+         */
+        private final ConcurrentHashMap<String, LongAdder> pruned;
+
+        /**
+         * Creates the task.
+         *
+         * @param level     The level being expanded.
+         * @param lo        The first position to expand.
+         * @param hi        One past the last position to expand.
+         * @param visited   The configurations seen on earlier levels.
+         * @param found     The new configurations with their smallest tag.
+         * @param generated The number of neighbors generated.
+         * @param pruned    The number of neighbors each rule proved dead.
+         */
+        private ExpandTask(List<Configuration> level, int lo, int hi, Map<Configuration, Configuration> visited,
+                           ConcurrentHashMap<Configuration, Long> found, LongAdder generated,
+                           ConcurrentHashMap<String, LongAdder> pruned) {
+            this.level = level;
+            this.lo = lo;
+            this.hi = hi;
+            this.visited = visited;
+            this.found = found;
+            this.generated = generated;
+            this.pruned = pruned;
+        }
+
+        /**
+         * Expands the part of the level, splitting it in half while it is big.
+         */
+        @Override
+        protected void compute() {
+            if (hi - lo <= THRESHOLD) {
+                for (int i = lo; i < hi; ++i) {
+                    long neighbor = (long) i << 32;
+                    for (Configuration cne : level.get(i).getNeighbors()) {
+                        generated.increment();
+                        String rule = deadEnd(cne);
+                        if (rule != null) {
+                            pruned.computeIfAbsent(rule, r -> new LongAdder()).increment();
+                        } else {
+                            cne = canonical(cne);
+                            if (!visited.containsKey(cne)) {
+                                found.merge(cne, neighbor, Math::min);
+                            }
+                        }
+                        ++neighbor;
+                    }
+                }
+            } else {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new ExpandTask(level, lo, mid, visited, found, generated, pruned),
+                        new ExpandTask(level, mid, hi, visited, found, generated, pruned));
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package puzzles.common.solver;
+
+/**
+ * A configuration of a puzzle that can sometimes prove, in about the time it takes to look at the board, that it
+ * can't be solved. With pruning turned on, a search checks the start and every configuration it makes, and drops
+ * the ones that are proven dead instead of searching below them.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public interface PrunableConfiguration extends Configuration {
+
+    /**
+     * Looks for a quick proof that this configuration can't be solved. A rule may miss a dead configuration, but it
+     * must never call a solvable one dead.
+     *
+     * @return The name of the rule that proves it can't be solved, or null if none does.
+     */
+    String deadEnd();
+}
@@ -0,0 +1,33 @@
+package puzzles.common.solver;
+
+/**
+ * A configuration of a puzzle whose reachable configurations can be numbered 0, 1, 2, ... with no gaps worth
+ * speaking of. The solver uses the number in place of the configuration: a BitSet marks the ones it has seen and an
+ * int array holds the one each was reached from, so nothing is hashed.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public interface RankedConfiguration extends Configuration {
+
+    /**
+     * Gets how many numbers the configurations reachable from this one can have.
+     *
+     * @return One more than the biggest rank.
+     */
+    long rankCount();
+
+    /**
+     * Gets the number of this configuration. Two configurations have the same rank if and only if they are equal.
+     *
+     * @return The rank, from 0 to {@link #rankCount()} - 1.
+     */
+    int rank();
+
+    /**
+     * Rebuilds a configuration reachable from this one from its number.
+     *
+     * @param rank The rank.
+     * @return The configuration with that rank.
+     */
+    Configuration unrank(int rank);
+}
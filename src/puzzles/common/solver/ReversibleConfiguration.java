@@ -0,0 +1,18 @@
+package puzzles.common.solver;
+
+import java.util.Collection;
+
+/**
+ * A configuration whose moves can be undone, so a search can also work backwards from a known goal.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public interface ReversibleConfiguration extends Configuration {
+
+    /**
+     * Get the configurations that have this configuration as one of their neighbors.
+     *
+     * @return The collection of configurations one move before this one.
+     */
+    Collection<Configuration> getReverseNeighbors();
+}
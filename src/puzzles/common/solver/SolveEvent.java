@@ -0,0 +1,82 @@
+package puzzles.common.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The JDK Flight Recorder event for a whole solve, with the same totals as {@link SolverStats}.
+ *
+ * @author Evan Prizel, emp4506
+ */
+@Name("puzzles.Solve")
+@Label("Solve")
+@Category({"Puzzles", "Solver"})
+@Description("A whole solve of a puzzle")
+class SolveEvent extends Event {
+
+    /**
+     * The configurations whose neighbors were made.
+     */
+    @Label("Expanded")
+    long expanded;
+
+    /**
+     * The neighbors that were made.
+     */
+    @Label("Generated")
+    long generated;
+
+    /**
+     * The neighbors that had already been seen.
+     */
+    @Label("Duplicates")
+    long duplicates;
+
+    /**
+     * The share of the neighbors that had already been seen.
+     */
+    @Label("Duplicate Ratio")
+    double duplicateRatio;
+
+    /**
+     * The configurations that were proven dead and dropped.
+     */
+    @Label("Pruned")
+    long pruned;
+
+    /**
+     * The number of BFS levels.
+     */
+    @Label("Levels")
+    int levels;
+
+    /**
+     * The size of the biggest level.
+     */
+    @Label("Peak Frontier")
+    int peakFrontier;
+
+    /**
+     * Roughly how much memory the visited configurations took up.
+     */
+    @Label("Visited Memory")
+    @DataAmount
+    long visitedBytes;
+
+    /**
+     * How much disk the levels took up, for a search that keeps them on disk.
+     */
+    @Label("Disk Used")
+    @DataAmount
+    long diskBytes;
+
+    /**
+     * Whether a solution was found.
+     */
+    @Label("Solved")
+    boolean solved;
+}
@@ -9,6 +9,11 @@ import java.util.*;
  */
 public class Solver {
 
+    /**
+     * The most ranks a {@link RankedConfiguration} can have to be searched by rank, the most an array can hold.
+     */
+    private final static long MAX_RANKS = Integer.MAX_VALUE - 8;
+
     /**
      * The current configuration the BFS is on.
      */
@@ -20,47 +25,422 @@ public class Solver {
     public int totalConfigs;
 
     /**
-     * The Hashmap that contains the predecessors list.
+     * The Hashmap that contains the predecessors list. It stays null when the configurations were stored in a
+     * {@link KeyTable} instead.
      */
     public Map<Configuration, Configuration> predecessors;
 
+    /**
+     * The number of different configurations that were seen.
+     */
+    public int uniqueConfigs;
+
+    /**
+     * Whether configurations that are mirror images or rotations of each other count as the same configuration.
+     */
+    private boolean symmetry;
+
+    /**
+     * Whether configurations that a {@link PrunableConfiguration} proves can't be solved are dropped.
+     */
+    private boolean pruning;
+
+    /**
+     * The listeners told about each solve.
+     */
+    private final List<SolverListener> listeners = new ArrayList<>();
+
+    /**
+     * The statistics of the last solve.
+     */
+    protected SolverStats stats;
 
     /**
      * Initializes the solver with a fresh number of totalConfigs.
      */
     public Solver() {
         totalConfigs = 0;
+        uniqueConfigs = 0;
+    }
+
+    /**
+     * Turns on searching one configuration per symmetry class for configurations that are a
+     * {@link SymmetricConfiguration}. The path found is still given in the real orientation.
+     *
+     * @param symmetry True to search one configuration per symmetry class.
+     */
+    public void setSymmetry(boolean symmetry) {
+        this.symmetry = symmetry;
+    }
+
+    /**
+     * Is the solver searching one configuration per symmetry class?
+     *
+     * @return True if yes, otherwise no.
+     */
+    protected boolean isSymmetry() {
+        return symmetry;
+    }
+
+    /**
+     * Turns on dropping the start, and every neighbor, that a {@link PrunableConfiguration} proves can't be solved.
+     * The path found is the same, since nothing below a dead configuration is on it, but fewer configurations are
+     * searched.
+     *
+     * @param pruning True to drop the configurations that are proven dead.
+     */
+    public void setPruning(boolean pruning) {
+        this.pruning = pruning;
+    }
+
+    /**
+     * Is the solver dropping the configurations that are proven dead?
+     *
+     * @return True if yes, otherwise no.
+     */
+    protected boolean isPruning() {
+        return pruning;
+    }
+
+    /**
+     * Checks whether a configuration is proven dead, counting it in the statistics if it is. Only checks when pruning
+     * is turned on.
+     *
+     * @param config The configuration.
+     * @return True if it should be dropped, otherwise false.
+     */
+    protected boolean isPruned(Configuration config) {
+        String rule = deadEnd(config);
+        if (rule != null) {
+            stats.pruned(rule);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Finds the rule that proves a configuration dead, without counting it, for solvers that count on several
+     * threads. Only checks when pruning is turned on.
+     *
+     * @param config The configuration.
+     * @return The name of the rule, or null if it isn't proven dead or pruning is turned off.
+     */
+    protected String deadEnd(Configuration config) {
+        if (pruning && config instanceof PrunableConfiguration prunable) {
+            return prunable.deadEnd();
+        }
+        return null;
+    }
+
+    /**
+     * Checks the start of a solve when pruning is turned on. A start that is proven dead is counted as the only
+     * configuration and the solve ends there, so the solvers call this before they set anything up.
+     *
+     * @param config The initial configuration.
+     * @return True if the start is dead and there is no path, otherwise false.
+     */
+    protected boolean isDeadStart(Configuration config) {
+        if (deadEnd(config) == null) {
+            return false;
+        }
+        predecessors = null;
+        startStats();
+        isPruned(config);
+        totalConfigs++;
+        stats.finish(false, 0);
+        return true;
+    }
+
+    /**
+     * Adds a listener that is told about every level and the end of each solve.
+     *
+     * @param listener The listener.
+     */
+    public void addListener(SolverListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Starts the statistics of a new solve. Solvers call this at the start of solve.
+     *
+     * @return The new statistics.
+     */
+    protected SolverStats startStats() {
+        stats = new SolverStats(listeners);
+        return stats;
+    }
+
+    /**
+     * Gets the statistics of the last solve.
+     *
+     * @return The statistics, null before the first solve.
+     */
+    public SolverStats getStats() {
+        return stats;
     }
 
     /**
      * BFS SOLVER
-     * Creates the predecessor map and sends it off to the method that creates the actual path.
+     * Creates the predecessor map and sends it off to the method that creates the actual path. Configurations that
+     * can be packed into keys are stored in a {@link KeyTable} instead of the map, and configurations that can be
+     * numbered are stored by their rank. The search stops below an {@link EndgameConfiguration} whose ending is
+     * known, and with pruning turned on it drops every configuration a {@link PrunableConfiguration} proves dead.
      *
      * @param config      The initial configuration we start with.
      * @param finalConfig The final configuration we are supposed to have.
      * @return the path from the initial config to the final config using BFS
      */
     public Collection<Configuration> solve(Configuration config, Configuration finalConfig) {
+        if (isDeadStart(config)) {
+            return new LinkedList<>();
+        }
+        if (config instanceof RankedConfiguration ranked && ranked.rankCount() <= MAX_RANKS) {
+            return solveRanked(ranked);
+        }
+        if (config instanceof KeyedConfiguration keyed) {
+            return solveKeyed(keyed);
+        }
+        SolverStats stats = startStats();
+        Configuration startConfig = canonical(config);
         List<Configuration> queue = new LinkedList<>();
-        queue.add(config);
+        queue.add(startConfig);
         totalConfigs++;
         predecessors = new HashMap<>();
-        predecessors.put(config, null);
+        predecessors.put(startConfig, null);
+        // the configurations left on the level being expanded, and the ones found for the next level
+        int levelLeft = 0;
+        int nextLevel = 1;
+        List<Configuration> ending = null;
         while (!queue.isEmpty()) {
+            if (levelLeft == 0) {
+                stats.endLevel();
+                stats.startLevel(nextLevel);
+                levelLeft = nextLevel;
+                nextLevel = 0;
+            }
+            --levelLeft;
             currConfig = queue.remove(0);
             if (currConfig.isSolution()) {
                 finalConfig = currConfig;
                 break;
             }
+            if (currConfig instanceof EndgameConfiguration endgame && endgame.inEndgame()) {
+                ending = endgame.finishEndgame();
+                if (ending != null) {
+                    finalConfig = currConfig;
+                    break;
+                }
+                continue;
+            }
+            stats.expanded();
             for (Configuration cne : currConfig.getNeighbors()) {
-                if (!predecessors.containsKey(cne)) {
+                totalConfigs++;
+                if (isPruned(cne)) {
+                    continue;
+                }
+                cne = canonical(cne);
+                boolean seen = predecessors.containsKey(cne);
+                if (!seen) {
                     predecessors.put(cne, currConfig);
                     queue.add(cne);
+                    ++nextLevel;
+                }
+                stats.generated(seen);
+            }
+        }
+        uniqueConfigs = predecessors.size();
+        List<Configuration> path = createPath(predecessors, startConfig, finalConfig);
+        finishPath(path, ending);
+        stats.finish(!path.isEmpty(), (long) uniqueConfigs * SolverStats.MAP_ENTRY_BYTES);
+        return realign(path, config);
+    }
+
+    /**
+     * The BFS for configurations that can be packed into keys. The entries of the key table are numbered in the
+     * order they were added, so they are also the BFS queue, and only the configuration being expanded is rebuilt.
+     *
+     * @param config The initial configuration we start with.
+     * @return the path from the initial config to a solution using BFS
+     */
+    private List<Configuration> solveKeyed(KeyedConfiguration config) {
+        predecessors = null;
+        SolverStats stats = startStats();
+        KeyTable table = new KeyTable(config.keyWidth());
+        long[] key = new long[config.keyWidth()];
+        ((KeyedConfiguration) canonical(config)).writeKey(key, 0);
+        table.add(key, 0, -1);
+        totalConfigs++;
+        int solution = -1;
+        int levelEnd = 0;
+        List<Configuration> ending = null;
+        for (int head = 0; head < table.size(); ++head) {
+            if (head == levelEnd) {
+                stats.endLevel();
+                stats.startLevel(table.size() - head);
+                levelEnd = table.size();
+            }
+            table.key(head, key, 0);
+            currConfig = head == 0 ? config : config.fromKey(key, 0);
+            if (currConfig.isSolution()) {
+                solution = head;
+                break;
+            }
+            if (currConfig instanceof EndgameConfiguration endgame && endgame.inEndgame()) {
+                ending = endgame.finishEndgame();
+                if (ending != null) {
+                    solution = head;
+                    break;
                 }
+                continue;
+            }
+            stats.expanded();
+            for (Configuration cne : currConfig.getNeighbors()) {
                 totalConfigs++;
+                if (isPruned(cne)) {
+                    continue;
+                }
+                ((KeyedConfiguration) canonical(cne)).writeKey(key, 0);
+                stats.generated(table.add(key, 0, head) < 0);
+            }
+        }
+        uniqueConfigs = table.size();
+        stats.finish(solution >= 0, table.memoryBytes());
+        List<Configuration> path = new LinkedList<>();
+        for (int entry = solution; entry > 0; entry = table.parent(entry)) {
+            table.key(entry, key, 0);
+            path.add(0, config.fromKey(key, 0));
+        }
+        if (solution >= 0) {
+            path.add(0, config);
+        }
+        finishPath(path, ending);
+        return realign(path, config);
+    }
+
+    /**
+     * The BFS for configurations that can be numbered. A BitSet holds the ranks that were seen and an int array the
+     * rank each one was reached from, and the queue is an int array of ranks. Only the configuration being expanded
+     * is rebuilt.
+     *
+     * @param config The initial configuration we start with.
+     * @return the path from the initial config to a solution using BFS
+     */
+    private List<Configuration> solveRanked(RankedConfiguration config) {
+        predecessors = null;
+        SolverStats stats = startStats();
+        int ranks = (int) config.rankCount();
+        BitSet seen = new BitSet(ranks);
+        int[] parents = new int[ranks];
+        int[] queue = new int[ranks];
+        int tail = 0;
+        int start = ((RankedConfiguration) canonical(config)).rank();
+        seen.set(start);
+        parents[start] = -1;
+        queue[tail++] = start;
+        totalConfigs++;
+        int solution = -1;
+        int levelEnd = 0;
+        List<Configuration> ending = null;
+        for (int head = 0; head < tail; ++head) {
+            if (head == levelEnd) {
+                stats.endLevel();
+                stats.startLevel(tail - head);
+                levelEnd = tail;
+            }
+            currConfig = head == 0 ? config : config.unrank(queue[head]);
+            if (currConfig.isSolution()) {
+                solution = queue[head];
+                break;
+            }
+            if (currConfig instanceof EndgameConfiguration endgame && endgame.inEndgame()) {
+                ending = endgame.finishEndgame();
+                if (ending != null) {
+                    solution = queue[head];
+                    break;
+                }
+                continue;
+            }
+            stats.expanded();
+            for (Configuration cne : currConfig.getNeighbors()) {
+                totalConfigs++;
+                if (isPruned(cne)) {
+                    continue;
+                }
+                int rank = ((RankedConfiguration) canonical(cne)).rank();
+                boolean duplicate = seen.get(rank);
+                if (!duplicate) {
+                    seen.set(rank);
+                    parents[rank] = queue[head];
+                    queue[tail++] = rank;
+                }
+                stats.generated(duplicate);
+            }
+        }
+        uniqueConfigs = tail;
+        stats.finish(solution >= 0, seen.size() / 8 + 8L * ranks);
+        List<Configuration> path = new LinkedList<>();
+        for (int rank = solution; rank >= 0 && rank != start; rank = parents[rank]) {
+            path.add(0, config.unrank(rank));
+        }
+        if (solution >= 0) {
+            path.add(0, config);
+        }
+        finishPath(path, ending);
+        return realign(path, config);
+    }
+
+    /**
+     * Adds the ending of an {@link EndgameConfiguration} the search stopped at to the path that reached it.
+     *
+     * @param path   The path to the configuration the search stopped at.
+     * @param ending The configurations after it up to a solution, null if the search stopped at a solution.
+     */
+    private void finishPath(List<Configuration> path, List<Configuration> ending) {
+        if (ending != null && !path.isEmpty()) {
+            for (Configuration next : ending) {
+                path.add(canonical(next));
+            }
+        }
+    }
+
+    /**
+     * Gets the configuration that stands for the whole symmetry class of the given one.
+     *
+     * @param config The configuration.
+     * @return The representative, or the configuration itself when symmetry isn't used.
+     */
+    protected Configuration canonical(Configuration config) {
+        if (symmetry && config instanceof SymmetricConfiguration symmetric) {
+            return symmetric.canonical();
+        }
+        return config;
+    }
+
+    /**
+     * Turns a path of representatives back into the moves that are actually made from the start. At each step the
+     * neighbor that belongs to the next representative's class is taken.
+     *
+     * @param path        The path, which may hold representatives instead of the real configurations.
+     * @param startConfig The real starting configuration.
+     * @return The path in the real orientation.
+     */
+    protected List<Configuration> realign(List<Configuration> path, Configuration startConfig) {
+        if (!symmetry || path.isEmpty()) {
+            return path;
+        }
+        List<Configuration> real = new LinkedList<>();
+        Configuration currConfig = startConfig;
+        real.add(currConfig);
+        for (Configuration next : path.subList(1, path.size())) {
+            for (Configuration cne : currConfig.getNeighbors()) {
+                if (canonical(cne).equals(next)) {
+                    currConfig = cne;
+                    break;
+                }
             }
+            real.add(currConfig);
         }
-        return createPath(predecessors, config, finalConfig);
+        return real;
     }
 
     /**
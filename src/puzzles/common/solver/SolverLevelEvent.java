@@ -0,0 +1,50 @@
+package puzzles.common.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The JDK Flight Recorder event for one BFS level. Its duration is the time the level took to expand, and the
+ * counts are the totals of the solve so far.
+ *
+ * @author Evan Prizel, emp4506
+ */
+@Name("puzzles.SolverLevel")
+@Label("Solver Level")
+@Category({"Puzzles", "Solver"})
+@Description("One level of a BFS solve")
+class SolverLevelEvent extends Event {
+
+    /**
+     * The level, 0 for the start.
+     */
+    @Label("Depth")
+    int depth;
+
+    /**
+     * The number of configurations on the level.
+     */
+    @Label("Frontier")
+    int frontier;
+
+    /**
+     * The configurations whose neighbors were made so far.
+     */
+    @Label("Expanded")
+    long expanded;
+
+    /**
+     * The neighbors that were made so far.
+     */
+    @Label("Generated")
+    long generated;
+
+    /**
+     * The neighbors so far that had already been seen.
+     */
+    @Label("Duplicates")
+    long duplicates;
+}
@@ -0,0 +1,26 @@
+package puzzles.common.solver;
+
+/**
+ * Gets told how a solve is going. A BFS reports each level when it is done with it, and every solver reports once
+ * at the end with the totals. Listeners are called on the thread that runs the solve.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public interface SolverListener {
+
+    /**
+     * Called when the solver is done expanding a level.
+     *
+     * @param stats The statistics so far.
+     * @param depth The level that was just expanded, 0 for the start.
+     */
+    default void levelFinished(SolverStats stats, int depth) {
+    }
+
+    /**
+     * Called when the solve is over.
+     *
+     * @param stats The statistics of the whole solve.
+     */
+    void solveFinished(SolverStats stats);
+}
@@ -0,0 +1,153 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits the command arguments of a puzzle program into the switches that pick how the puzzle is solved and the
+ * arguments that describe the puzzle itself.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public class SolverOptions {
+
+    /**
+     * The usage text for the switches.
+     */
+    public final static String USAGE = "[--parallel | --bidirectional | --external | --inplace] [--symmetry] [--prune]"
+            + " [--stats]";
+
+    /**
+     * The usage text for the switches of puzzles that aren't searched backwards.
+     */
+    public final static String FORWARD_USAGE = "[--parallel | --external | --inplace] [--symmetry] [--prune] [--stats]";
+
+    /**
+     * The arguments that aren't switches, in order.
+     */
+    private final List<String> arguments;
+
+    /**
+     * Whether the BFS should expand each level on all cores.
+     */
+    private boolean parallel;
+
+    /**
+     * Whether to search backwards from the goal as well.
+     */
+    private boolean bidirectional;
+
+    /**
+     * Whether to keep the BFS levels on disk.
+     */
+    private boolean external;
+
+    /**
+     * Whether to search in place, with moves that are made and taken back.
+     */
+    private boolean inPlace;
+
+    /**
+     * Whether to search one configuration per symmetry class.
+     */
+    private boolean symmetry;
+
+    /**
+     * Whether to drop the configurations a {@link PrunableConfiguration} proves can't be solved.
+     */
+    private boolean prune;
+
+    /**
+     * Whether to print the {@link SolverStats} of each solve to System.err.
+     */
+    private boolean stats;
+
+    /**
+     * Reads the switches out of the command arguments.
+     *
+     * @param args The command arguments.
+     */
+    public SolverOptions(String[] args) {
+        arguments = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--parallel")) {
+                parallel = true;
+            } else if (arg.equals("--bidirectional")) {
+                bidirectional = true;
+            } else if (arg.equals("--external")) {
+                external = true;
+            } else if (arg.equals("--inplace")) {
+                inPlace = true;
+            } else if (arg.equals("--symmetry")) {
+                symmetry = true;
+            } else if (arg.equals("--prune")) {
+                prune = true;
+            } else if (arg.equals("--stats")) {
+                stats = true;
+            } else {
+                arguments.add(arg);
+            }
+        }
+    }
+
+    /**
+     * Gets the arguments that aren't switches.
+     *
+     * @return The arguments, in order.
+     */
+    public String[] getArguments() {
+        return arguments.toArray(new String[0]);
+    }
+
+    /**
+     * Did the switches ask to search backwards from the goal as well?
+     *
+     * @return True if yes, otherwise no.
+     */
+    public boolean isBidirectional() {
+        return bidirectional;
+    }
+
+    /**
+     * Did the switches leave the search to the plain {@link Solver} BFS, the only one of them that stops at an
+     * {@link EndgameConfiguration}?
+     *
+     * @return True if yes, otherwise no.
+     */
+    public boolean isPlainSearch() {
+        return !parallel && !bidirectional && !external && !inPlace;
+    }
+
+    /**
+     * Creates the solver the switches asked for.
+     *
+     * @return The solver.
+     */
+    public Solver createSolver() {
+        if (bidirectional) {
+            return configure(new BidirectionalSolver());
+        }
+        if (external) {
+            return configure(new ExternalSolver());
+        }
+        if (inPlace) {
+            return configure(new MutableSolver());
+        }
+        return configure(parallel ? new ParallelSolver() : new Solver());
+    }
+
+    /**
+     * Applies the switches that every kind of solver understands.
+     *
+     * @param solver The solver.
+     * @return The same solver.
+     */
+    public Solver configure(Solver solver) {
+        solver.setSymmetry(symmetry);
+        solver.setPruning(prune);
+        if (stats) {
+            solver.addListener(System.err::println);
+        }
+        return solver;
+    }
+}
@@ -0,0 +1,377 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The statistics of one solve: how many configurations were expanded and generated, how many of the generated ones
+ * had already been seen, how many were pruned by each rule, how big each BFS level was and how long it took, and
+ * roughly how much memory, and for a search that keeps its levels on disk how much disk, the visited configurations
+ * took up.
+ * <p>
+ * The solvers fill this in as they go. Every level and the end of the solve are passed on to the listeners and
+ * recorded as JDK Flight Recorder events, which cost next to nothing while no recording is running.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public class SolverStats {
+
+    /**
+     * Roughly what one entry of a HashMap takes: the node plus its share of the table. The configurations
+     * themselves aren't counted since their size depends on the puzzle.
+     */
+    public final static int MAP_ENTRY_BYTES = 48;
+
+    /**
+     * The listeners to tell about each level and the end of the solve.
+     */
+    private final List<SolverListener> listeners;
+
+    /**
+     * The configurations whose neighbors were made.
+     */
+    private long expanded;
+
+    /**
+     * The neighbors that were made.
+     */
+    private long generated;
+
+    /**
+     * The neighbors that had already been seen.
+     */
+    private long duplicates;
+
+    /**
+     * The configurations proven dead by each rule of a {@link PrunableConfiguration}, in the order the rules first
+     * fired.
+     */
+    private final Map<String, Long> pruned = new LinkedHashMap<>();
+
+    /**
+     * The number of configurations on each level, and how long each level took to expand in nanoseconds.
+     */
+    private final List<Integer> frontiers = new ArrayList<>();
+    private final List<Long> levelNanos = new ArrayList<>();
+
+    /**
+     * The size of the biggest level.
+     */
+    private int peakFrontier;
+
+    /**
+     * Roughly how many bytes the visited configurations took up.
+     */
+    private long visitedBytes;
+
+    /**
+     * How many bytes the levels took up on disk, 0 if they were kept in memory.
+     */
+    private long diskBytes;
+
+    /**
+     * Whether a solution was found.
+     */
+    private boolean solved;
+
+    /**
+     * When the level being expanded started, and the JFR event for it.
+     */
+    private long levelStart;
+    private SolverLevelEvent levelEvent;
+
+    /**
+     * The JFR event for the whole solve.
+     */
+    private final SolveEvent solveEvent = new SolveEvent();
+
+    /**
+     * Starts the statistics of a new solve.
+     *
+     * @param listeners The listeners to tell about each level and the end of the solve.
+     */
+    public SolverStats(List<SolverListener> listeners) {
+        this.listeners = listeners;
+        solveEvent.begin();
+    }
+
+    /**
+     * Counts a configuration whose neighbors are being made.
+     */
+    public void expanded() {
+        ++expanded;
+    }
+
+    /**
+     * Counts a neighbor.
+     *
+     * @param duplicate Whether the neighbor had already been seen.
+     */
+    public void generated(boolean duplicate) {
+        ++generated;
+        if (duplicate) {
+            ++duplicates;
+        }
+    }
+
+    /**
+     * Counts a configuration that was proven dead and dropped.
+     *
+     * @param rule The name of the rule that proved it.
+     */
+    public void pruned(String rule) {
+        pruned(rule, 1);
+    }
+
+    /**
+     * Counts configurations that one rule proved dead, for solvers that count on several threads.
+     *
+     * @param rule The name of the rule that proved them.
+     * @param hits The number of configurations it proved dead.
+     */
+    public void pruned(String rule, long hits) {
+        pruned.merge(rule, hits, Long::sum);
+    }
+
+    /**
+     * Adds counts that were kept somewhere else, for solvers that count on several threads.
+     *
+     * @param expanded   The configurations whose neighbors were made.
+     * @param generated  The neighbors that were made.
+     * @param duplicates The neighbors that had already been seen.
+     */
+    public void add(long expanded, long generated, long duplicates) {
+        this.expanded += expanded;
+        this.generated += generated;
+        this.duplicates += duplicates;
+    }
+
+    /**
+     * Starts timing the next level.
+     *
+     * @param frontier The number of configurations on the level.
+     */
+    public void startLevel(int frontier) {
+        frontiers.add(frontier);
+        peakFrontier = Math.max(peakFrontier, frontier);
+        levelEvent = new SolverLevelEvent();
+        levelEvent.begin();
+        levelStart = System.nanoTime();
+    }
+
+    /**
+     * Stops timing the level and tells the listeners about it.
+     */
+    public void endLevel() {
+        if (levelEvent == null) {
+            return;
+        }
+        levelNanos.add(System.nanoTime() - levelStart);
+        int depth = frontiers.size() - 1;
+        levelEvent.end();
+        if (levelEvent.shouldCommit()) {
+            levelEvent.depth = depth;
+            levelEvent.frontier = frontiers.get(depth);
+            levelEvent.expanded = expanded;
+            levelEvent.generated = generated;
+            levelEvent.duplicates = duplicates;
+            levelEvent.commit();
+        }
+        levelEvent = null;
+        for (SolverListener listener : listeners) {
+            listener.levelFinished(this, depth);
+        }
+    }
+
+    /**
+     * Ends the solve and tells the listeners about it.
+     *
+     * @param solved       Whether a solution was found.
+     * @param visitedBytes Roughly how many bytes the visited configurations took up.
+     */
+    public void finish(boolean solved, long visitedBytes) {
+        finish(solved, visitedBytes, 0);
+    }
+
+    /**
+     * Ends a solve that kept its levels on disk and tells the listeners about it.
+     *
+     * @param solved       Whether a solution was found.
+     * @param visitedBytes How many bytes the visited configurations took up in memory.
+     * @param diskBytes    How many bytes the levels took up on disk.
+     */
+    public void finish(boolean solved, long visitedBytes, long diskBytes) {
+        endLevel();
+        this.solved = solved;
+        this.visitedBytes = visitedBytes;
+        this.diskBytes = diskBytes;
+        solveEvent.end();
+        if (solveEvent.shouldCommit()) {
+            solveEvent.expanded = expanded;
+            solveEvent.generated = generated;
+            solveEvent.duplicates = duplicates;
+            solveEvent.duplicateRatio = getDuplicateRatio();
+            solveEvent.pruned = getPruned();
+            solveEvent.levels = frontiers.size();
+            solveEvent.peakFrontier = peakFrontier;
+            solveEvent.visitedBytes = visitedBytes;
+            solveEvent.diskBytes = diskBytes;
+            solveEvent.solved = solved;
+            solveEvent.commit();
+        }
+        for (SolverListener listener : listeners) {
+            listener.solveFinished(this);
+        }
+    }
+
+    /**
+     * Gets the number of configurations whose neighbors were made.
+     *
+     * @return The number expanded.
+     */
+    public long getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * Gets the number of neighbors that were made.
+     *
+     * @return The number generated.
+     */
+    public long getGenerated() {
+        return generated;
+    }
+
+    /**
+     * Gets the number of neighbors that had already been seen.
+     *
+     * @return The number of duplicates.
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Gets the share of the neighbors that had already been seen.
+     *
+     * @return The duplicates over the generated, 0 if nothing was generated.
+     */
+    public double getDuplicateRatio() {
+        return generated == 0 ? 0 : (double) duplicates / generated;
+    }
+
+    /**
+     * Gets the number of configurations that were proven dead and dropped.
+     *
+     * @return The number pruned by all the rules.
+     */
+    public long getPruned() {
+        long total = 0;
+        for (long hits : pruned.values()) {
+            total += hits;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the number of configurations each rule proved dead.
+     *
+     * @return The counts by rule name, which can't be changed.
+     */
+    public Map<String, Long> getPrunedByRule() {
+        return Collections.unmodifiableMap(pruned);
+    }
+
+    /**
+     * Gets the number of levels that were expanded. A depth first search has none.
+     *
+     * @return The number of levels.
+     */
+    public int getLevels() {
+        return frontiers.size();
+    }
+
+    /**
+     * Gets the number of configurations on a level.
+     *
+     * @param depth The level.
+     * @return The size of the level.
+     */
+    public int getFrontier(int depth) {
+        return frontiers.get(depth);
+    }
+
+    /**
+     * Gets how long a level took to expand.
+     *
+     * @param depth The level, which must be finished.
+     * @return The time in nanoseconds.
+     */
+    public long getLevelNanos(int depth) {
+        return levelNanos.get(depth);
+    }
+
+    /**
+     * Gets the size of the biggest level.
+     *
+     * @return The peak frontier.
+     */
+    public int getPeakFrontier() {
+        return peakFrontier;
+    }
+
+    /**
+     * Gets roughly how many bytes the visited configurations took up, known once the solve is over.
+     *
+     * @return The estimate in bytes.
+     */
+    public long getVisitedBytes() {
+        return visitedBytes;
+    }
+
+    /**
+     * Gets how many bytes the levels took up on disk, known once the solve is over.
+     *
+     * @return The size in bytes, 0 if the levels were kept in memory.
+     */
+    public long getDiskBytes() {
+        return diskBytes;
+    }
+
+    /**
+     * Was a solution found? Known once the solve is over.
+     *
+     * @return True if yes, otherwise no.
+     */
+    public boolean isSolved() {
+        return solved;
+    }
+
+    /**
+     * A summary of the solve, with a line per level.
+     *
+     * @return The summary.
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("Expanded: %d, generated: %d, duplicates: %d (%.1f%%)%n", expanded, generated,
+                duplicates, 100 * getDuplicateRatio()));
+        if (!pruned.isEmpty()) {
+            out.append("Pruned: ").append(getPruned()).append(' ').append(pruned).append(String.format("%n"));
+        }
+        out.append(String.format("Levels: %d, peak frontier: %d, visited memory: ~%d KB", frontiers.size(),
+                peakFrontier, visitedBytes / 1024));
+        if (diskBytes > 0) {
+            out.append(String.format(", on disk: ~%d KB", (diskBytes + 1023) / 1024));
+        }
+        for (int depth = 0; depth < levelNanos.size(); ++depth) {
+            out.append(String.format("%nLevel %d: frontier %d, %.3f ms", depth, frontiers.get(depth),
+                    levelNanos.get(depth) / 1e6));
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,18 @@
+package puzzles.common.solver;
+
+/**
+ * A configuration of a puzzle whose board looks the same when it is mirrored or rotated. Configurations that are
+ * mirror images or rotations of each other have solutions of the same length, so a search only needs one of them.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public interface SymmetricConfiguration extends Configuration {
+
+    /**
+     * Gets the configuration that stands for every mirror image and rotation of this one. All the configurations
+     * of one symmetry class give the same, equal, representative.
+     *
+     * @return The representative of the symmetry class.
+     */
+    Configuration canonical();
+}
@@ -2,7 +2,12 @@ package puzzles.crossing;
 
 import puzzles.common.solver.Configuration;
 import puzzles.common.solver.Solver;
+import puzzles.common.solver.SolverOptions;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Arrays;
 import java.util.Collection;
 
 /**
@@ -13,18 +18,23 @@ import java.util.Collection;
  */
 public class Crossing {
     public static void main(String[] args) {
+        boolean direct = Arrays.asList(args).contains("--direct");
+        SolverOptions options = new SolverOptions(args);
+        args = Arrays.stream(options.getArguments()).filter(arg -> !arg.equals("--direct")).toArray(String[]::new);
         if (args.length < 2) {
-            System.out.println(("Usage: java Crossing pups wolves"));
+            System.out.println(("Usage: java Crossing [--direct] " + SolverOptions.USAGE + " pups wolves"));
+        } else if (direct) {
+            printPlan(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
         } else {
             CrossingConfig startConfig = new CrossingConfig(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
                     0, 0, 'L');
             CrossingConfig finalConfig = new CrossingConfig(0, 0,
                     Integer.parseInt(args[0]), Integer.parseInt(args[1]), 'R');
-            Solver solver = new Solver();
+            Solver solver = options.createSolver();
             Collection<Configuration> path = solver.solve(startConfig, finalConfig);
             System.out.println("Pups: " + args[0] + ", Wolves: " + args[1]);
             System.out.println("Total Configs: " + solver.totalConfigs);
-            System.out.println("Unique configs: " + solver.predecessors.size());
+            System.out.println("Unique configs: " + solver.uniqueConfigs);
             if (!path.isEmpty()) {
                 int i = 0;
                 for (Configuration config : path) {
@@ -36,4 +46,24 @@ public class Crossing {
             }
         }
     }
+
+    /**
+     * Prints the shortest crossing from {@link CrossingPlan} without searching, one step at a time, so it works
+     * for any number of animals.
+     *
+     * @param pups   The number of pups.
+     * @param wolves The number of wolves.
+     */
+    private static void printPlan(int pups, int wolves) {
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        out.println("Pups: " + pups + ", Wolves: " + wolves);
+        if (CrossingPlan.isSolvable(pups, wolves)) {
+            out.println("Moves: " + CrossingPlan.moves(pups, wolves));
+            long[] step = {0};
+            CrossingPlan.steps(pups, wolves).forEach(config -> out.println("Step " + step[0]++ + ": " + config));
+        } else {
+            out.println("No Solution");
+        }
+        out.flush();
+    }
 }
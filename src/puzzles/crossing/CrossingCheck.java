@@ -0,0 +1,113 @@
+package puzzles.crossing;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Solver;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks {@link CrossingPlan} against the BFS for every number of pups and wolves up to a limit, and against the
+ * expected answers in output/crossing. Spacing is ignored when comparing with the files, since they were written
+ * with slightly different padding.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public class CrossingCheck {
+
+    /**
+     * The most pups and wolves that are checked against the BFS when no limit is given.
+     */
+    private final static int DEFAULT_LIMIT = 20;
+
+    /**
+     * The directory of expected answers when none is given.
+     */
+    private final static String OUTPUT_DIR = "output" + java.io.File.separator + "crossing";
+
+    public static void main(String[] args) throws IOException {
+        int limit = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LIMIT;
+        Path dir = Paths.get(args.length > 1 ? args[1] : OUTPUT_DIR);
+        int failures = 0;
+        for (int pups = 0; pups <= limit; ++pups) {
+            for (int wolves = 0; wolves <= limit; ++wolves) {
+                List<String> expected = new ArrayList<>();
+                for (Configuration config : new Solver().solve(new CrossingConfig(pups, wolves, 0, 0, 'L'),
+                        new CrossingConfig(0, 0, pups, wolves, 'R'))) {
+                    expected.add(config.toString());
+                }
+                if (!expected.equals(plan(pups, wolves))) {
+                    System.out.println("Differs from the BFS: " + pups + " pups, " + wolves + " wolves");
+                    ++failures;
+                }
+            }
+        }
+        System.out.println("Checked against the BFS up to " + limit + " pups and wolves");
+        if (Files.isDirectory(dir)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.txt")) {
+                for (Path file : files) {
+                    if (!matchesFile(file)) {
+                        System.out.println("Differs from " + file);
+                        ++failures;
+                    }
+                }
+            }
+            System.out.println("Checked against " + dir);
+        }
+        System.out.println(failures == 0 ? "All good" : failures + " failures");
+        if (failures != 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Gets the steps of the plan as text.
+     *
+     * @param pups   The number of pups.
+     * @param wolves The number of wolves.
+     * @return The steps, empty if there is no crossing.
+     */
+    private static List<String> plan(int pups, int wolves) {
+        List<String> steps = new ArrayList<>();
+        CrossingPlan.steps(pups, wolves).forEach(config -> steps.add(config.toString()));
+        return steps;
+    }
+
+    /**
+     * Does the plan give the steps of an expected answer file?
+     *
+     * @param file The file, starting with "Pups: p, Wolves: w".
+     * @return True if yes, otherwise no.
+     * @throws IOException Thrown if the file can't be read.
+     */
+    private static boolean matchesFile(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        String[] header = lines.get(0).replaceAll("[^0-9]+", " ").trim().split(" ");
+        List<String> expected = new ArrayList<>();
+        for (String line : lines) {
+            if (line.startsWith("Step ")) {
+                expected.add(squeeze(line.substring(line.indexOf(':') + 1)));
+            }
+        }
+        List<String> actual = new ArrayList<>();
+        for (String step : plan(Integer.parseInt(header[0]), Integer.parseInt(header[1]))) {
+            actual.add(squeeze(step));
+        }
+        return expected.equals(actual);
+    }
+
+    /**
+     * Trims a line and squeezes its runs of spaces into one.
+     *
+     * @param line The line.
+     * @return The squeezed line.
+     */
+    private static String squeeze(String line) {
+        return line.trim().replaceAll("\\s+", " ");
+    }
+}
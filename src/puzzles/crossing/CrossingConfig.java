@@ -1,37 +1,45 @@
 package puzzles.crossing;
 
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.MutableConfiguration;
+import puzzles.common.solver.MutableState;
+import puzzles.common.solver.RankedConfiguration;
+import puzzles.common.solver.ReversibleConfiguration;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 
 /**
  * This is the configuration class for the Crossing game.
+ * <p>
+ * The pups and wolves on the right are whatever isn't on the left, so a configuration is numbered by the pups and
+ * wolves on the left and the boat side: rank = (pupsL * (totalWolves + 1) + wolvesL) * 2 + (boat is right).
  *
  * @author Evan Prizel, emp4506
  */
-public class CrossingConfig implements Configuration {
+public class CrossingConfig implements ReversibleConfiguration, MutableConfiguration, RankedConfiguration {
 
     /**
      * Holds the numbers for each pup/wolf on each side of the river.
      */
-    private ArrayList<Integer> animals;
+    private final int[] animals;
 
     /**
      * The boat char value, 'L' for left and 'R' for right
      */
-    private char boat;
+    private final char boat;
 
     /**
      * The total number of pups on both sides.
      */
-    private int totalPups;
+    private final int totalPups;
 
     /**
      * The total number of wolves on both sides.
      */
-    private int totalWolves;
+    private final int totalWolves;
 
     /**
      * Creates the crossing configuration with the pup/wolf values at each side of the river. As well as what side the
@@ -44,11 +52,7 @@ public class CrossingConfig implements Configuration {
      * @param boat    The boat side 'L' or 'R'
      */
     public CrossingConfig(int pupsL, int wolvesL, int pupsR, int wolvesR, char boat) {
-        animals = new ArrayList<>();
-        this.animals.add(pupsL);
-        this.animals.add(wolvesL);
-        this.animals.add(pupsR);
-        this.animals.add(wolvesR);
+        animals = new int[]{pupsL, wolvesL, pupsR, wolvesR};
         this.boat = boat;
         totalPups = pupsL + pupsR;
         totalWolves = wolvesL + wolvesR;
@@ -71,7 +75,7 @@ public class CrossingConfig implements Configuration {
      */
     @Override
     public boolean isSolution() {
-        return animals.get(0) == 0 && animals.get(1) == 0 && animals.get(2) == totalPups && animals.get(3) == totalWolves && boat == 'R';
+        return animals[0] == 0 && animals[1] == 0 && animals[2] == totalPups && animals[3] == totalWolves && boat == 'R';
     }
 
     /**
@@ -81,7 +85,7 @@ public class CrossingConfig implements Configuration {
      */
     @Override
     public int hashCode() {
-        return animals.hashCode() + boat;
+        return rank();
     }
 
     /**
@@ -94,7 +98,7 @@ public class CrossingConfig implements Configuration {
     public boolean equals(Object other) {
         boolean result = false;
         if (other instanceof CrossingConfig config) {
-            result = animals.equals(config.animals) && boat == config.getBoat();
+            result = Arrays.equals(animals, config.animals) && boat == config.getBoat();
         }
         return result;
     }
@@ -110,32 +114,32 @@ public class CrossingConfig implements Configuration {
         if (boat == 'L') {
             for (int i = 0; i < 3; ++i) {
                 if (i == 0) {
-                    if (animals.get(0) > 0) {
-                        neighbors.add(new CrossingConfig(animals.get(0) - 1, animals.get(1), animals.get(2) + 1, animals.get(3), 'R'));
+                    if (animals[0] > 0) {
+                        neighbors.add(new CrossingConfig(animals[0] - 1, animals[1], animals[2] + 1, animals[3], 'R'));
                     }
                 } else if (i == 1) {
-                    if (animals.get(0) > 1) {
-                        neighbors.add(new CrossingConfig(animals.get(0) - 2, animals.get(1), animals.get(2) + 2, animals.get(3), 'R'));
+                    if (animals[0] > 1) {
+                        neighbors.add(new CrossingConfig(animals[0] - 2, animals[1], animals[2] + 2, animals[3], 'R'));
                     }
                 } else {
-                    if (animals.get(1) > 0) {
-                        neighbors.add(new CrossingConfig(animals.get(0), animals.get(1) - 1, animals.get(2), animals.get(3) + 1, 'R'));
+                    if (animals[1] > 0) {
+                        neighbors.add(new CrossingConfig(animals[0], animals[1] - 1, animals[2], animals[3] + 1, 'R'));
                     }
                 }
             }
         } else {
             for (int i = 0; i < 3; ++i) {
                 if (i == 0) {
-                    if (animals.get(2) > 0) {
-                        neighbors.add(new CrossingConfig(animals.get(0) + 1, animals.get(1), animals.get(2) - 1, animals.get(3), 'L'));
+                    if (animals[2] > 0) {
+                        neighbors.add(new CrossingConfig(animals[0] + 1, animals[1], animals[2] - 1, animals[3], 'L'));
                     }
                 } else if (i == 1) {
-                    if (animals.get(2) > 1) {
-                        neighbors.add(new CrossingConfig(animals.get(0) + 2, animals.get(1), animals.get(2) - 2, animals.get(3), 'L'));
+                    if (animals[2] > 1) {
+                        neighbors.add(new CrossingConfig(animals[0] + 2, animals[1], animals[2] - 2, animals[3], 'L'));
                     }
                 } else {
-                    if (animals.get(3) > 0) {
-                        neighbors.add(new CrossingConfig(animals.get(0), animals.get(1) + 1, animals.get(2), animals.get(3) - 1, 'L'));
+                    if (animals[3] > 0) {
+                        neighbors.add(new CrossingConfig(animals[0], animals[1] + 1, animals[2], animals[3] - 1, 'L'));
                     }
                 }
             }
@@ -143,6 +147,83 @@ public class CrossingConfig implements Configuration {
         return neighbors;
     }
 
+    /**
+     * Get the configurations that have this configuration as one of their neighbors. The boat is on the other side
+     * of the river, and the animals it just carried are taken back with it.
+     *
+     * @return The collection of configurations one move before this one.
+     */
+    @Override
+    public Collection<Configuration> getReverseNeighbors() {
+        ArrayList<Configuration> neighbors = new ArrayList<>();
+        if (boat == 'R') {
+            if (animals[2] > 0) {
+                neighbors.add(new CrossingConfig(animals[0] + 1, animals[1], animals[2] - 1, animals[3], 'L'));
+            }
+            if (animals[2] > 1) {
+                neighbors.add(new CrossingConfig(animals[0] + 2, animals[1], animals[2] - 2, animals[3], 'L'));
+            }
+            if (animals[3] > 0) {
+                neighbors.add(new CrossingConfig(animals[0], animals[1] + 1, animals[2], animals[3] - 1, 'L'));
+            }
+        } else {
+            if (animals[0] > 0) {
+                neighbors.add(new CrossingConfig(animals[0] - 1, animals[1], animals[2] + 1, animals[3], 'R'));
+            }
+            if (animals[0] > 1) {
+                neighbors.add(new CrossingConfig(animals[0] - 2, animals[1], animals[2] + 2, animals[3], 'R'));
+            }
+            if (animals[1] > 0) {
+                neighbors.add(new CrossingConfig(animals[0], animals[1] - 1, animals[2], animals[3] + 1, 'R'));
+            }
+        }
+        return neighbors;
+    }
+
+    /**
+     * Gets how many numbers the configurations with the same animals can have.
+     *
+     * @return Every split of the pups and of the wolves, on either side of the boat.
+     */
+    @Override
+    public long rankCount() {
+        return 2L * (totalPups + 1) * (totalWolves + 1);
+    }
+
+    /**
+     * Gets the number of this configuration.
+     *
+     * @return The rank.
+     */
+    @Override
+    public int rank() {
+        return (animals[0] * (totalWolves + 1) + animals[1]) * 2 + (boat == 'R' ? 1 : 0);
+    }
+
+    /**
+     * Rebuilds the configuration with the given number and the same animals.
+     *
+     * @param rank The rank.
+     * @return The configuration.
+     */
+    @Override
+    public CrossingConfig unrank(int rank) {
+        int pupsL = (rank >>> 1) / (totalWolves + 1);
+        int wolvesL = (rank >>> 1) % (totalWolves + 1);
+        return new CrossingConfig(pupsL, wolvesL, totalPups - pupsL, totalWolves - wolvesL,
+                (rank & 1) != 0 ? 'R' : 'L');
+    }
+
+    /**
+     * Creates a state with the same animals and boat that can be searched in place.
+     *
+     * @return The new state.
+     */
+    @Override
+    public MutableState newState() {
+        return new State(animals[0], animals[1], animals[2], animals[3], boat);
+    }
+
     /**
      * A human-readable String of text that makes sense within the context of the puzzle.
      *
@@ -152,10 +233,175 @@ public class CrossingConfig implements Configuration {
     public String toString() {
         String result;
         if (boat == 'L') {
-            result = ("(BOAT) left=[" + animals.get(0) + ", " + animals.get(1) + "], right=[" + animals.get(2) + ", " + animals.get(3) + "]       ");
+            result = ("(BOAT) left=[" + animals[0] + ", " + animals[1] + "], right=[" + animals[2] + ", " + animals[3] + "]       ");
         } else {
-            result = ("       left=[" + animals.get(0) + ", " + animals.get(1) + "], right=[" + animals.get(2) + ", " + animals.get(3) + "] (BOAT)");
+            result = ("       left=[" + animals[0] + ", " + animals[1] + "], right=[" + animals[2] + ", " + animals[3] + "] (BOAT)");
         }
         return result;
     }
+
+    /**
+     * The animals on each side and the boat, changed in place. Move 0 takes one pup across, move 1 two pups and
+     * move 2 one wolf, always from the side the boat is on, the same order as {@link #getNeighbors()}.
+     */
+    private static final class State implements MutableState {
+
+        /**
+         * The pups and wolves on the left and on the right.
+         */
+        private int pupsL;
+        private int wolvesL;
+        private int pupsR;
+        private int wolvesR;
+
+        /**
+         * The boat side, 'L' or 'R'.
+         */
+        private char boat;
+
+        /**
+         * Creates the state.
+         *
+         * @param pupsL   Pups on the left side of the river.
+         * @param wolvesL Wolves on the left side of the river.
+         * @param pupsR   Pups on the right side of the river.
+         * @param wolvesR Wolves on the right side of the river.
+         * @param boat    The boat side 'L' or 'R'
+         */
+        private State(int pupsL, int wolvesL, int pupsR, int wolvesR, char boat) {
+            this.pupsL = pupsL;
+            this.wolvesL = wolvesL;
+            this.pupsR = pupsR;
+            this.wolvesR = wolvesR;
+            this.boat = boat;
+        }
+
+        /**
+         * Gets the most moves a state can have.
+         *
+         * @return 3, for one pup, two pups or one wolf.
+         */
+        @Override
+        public int maxMoves() {
+            return 3;
+        }
+
+        /**
+         * Lists the loads the boat can carry from the side it is on.
+         *
+         * @param moves The array the moves are written to.
+         * @return The number of moves written.
+         */
+        @Override
+        public int moves(int[] moves) {
+            int pups = boat == 'L' ? pupsL : pupsR;
+            int wolves = boat == 'L' ? wolvesL : wolvesR;
+            int count = 0;
+            if (pups > 0) {
+                moves[count++] = 0;
+            }
+            if (pups > 1) {
+                moves[count++] = 1;
+            }
+            if (wolves > 0) {
+                moves[count++] = 2;
+            }
+            return count;
+        }
+
+        /**
+         * Takes the load across to the other side.
+         *
+         * @param move The load.
+         */
+        @Override
+        public void apply(int move) {
+            cross(move, boat == 'L' ? 1 : -1);
+            boat = boat == 'L' ? 'R' : 'L';
+        }
+
+        /**
+         * Brings the load back to the side it came from.
+         *
+         * @param move The load.
+         */
+        @Override
+        public void undo(int move) {
+            boat = boat == 'L' ? 'R' : 'L';
+            cross(move, boat == 'L' ? -1 : 1);
+        }
+
+        /**
+         * Moves a load from one side to the other.
+         *
+         * @param move      The load.
+         * @param direction 1 to move it from the left to the right, -1 to move it back.
+         */
+        private void cross(int move, int direction) {
+            int pups = move == 0 ? 1 : move == 1 ? 2 : 0;
+            int wolves = move == 2 ? 1 : 0;
+            pupsL -= direction * pups;
+            pupsR += direction * pups;
+            wolvesL -= direction * wolves;
+            wolvesR += direction * wolves;
+        }
+
+        /**
+         * Is every animal on the right with the boat?
+         *
+         * @return True if yes, otherwise no.
+         */
+        @Override
+        public boolean isSolution() {
+            return pupsL == 0 && wolvesL == 0 && boat == 'R';
+        }
+
+        /**
+         * Gets the number of longs in the key.
+         *
+         * @return 1, the animals on the left and the boat fit in one long.
+         */
+        @Override
+        public int keyWidth() {
+            return 1;
+        }
+
+        /**
+         * Packs the animals on the left and the boat into the key. The right side is whatever is left over.
+         *
+         * @param key    The array the key is written to.
+         * @param offset The index of the first long of the key.
+         */
+        @Override
+        public void writeKey(long[] key, int offset) {
+            key[offset] = ((long) pupsL << 32) | ((long) wolvesL << 1) | (boat == 'R' ? 1 : 0);
+        }
+
+        /**
+         * Unpacks the animals on the left and the boat from the key.
+         *
+         * @param key    The array the key is read from.
+         * @param offset The index of the first long of the key.
+         */
+        @Override
+        public void readKey(long[] key, int offset) {
+            int totalPups = pupsL + pupsR;
+            int totalWolves = wolvesL + wolvesR;
+            pupsL = (int) (key[offset] >>> 32);
+            wolvesL = (int) key[offset] >>> 1;
+            pupsR = totalPups - pupsL;
+            wolvesR = totalWolves - wolvesL;
+            boat = (key[offset] & 1) != 0 ? 'R' : 'L';
+        }
+
+        /**
+         * Makes a configuration with the same animals and boat.
+         *
+         * @return The configuration.
+         */
+        @Override
+        public Configuration snapshot() {
+            return new CrossingConfig(pupsL, wolvesL, pupsR, wolvesR, boat);
+        }
+    }
 }
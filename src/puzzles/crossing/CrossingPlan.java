@@ -0,0 +1,140 @@
+package puzzles.crossing;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Builds the shortest crossing directly instead of searching for it. The boat always carries one pup, two pups or
+ * one wolf, so the shortest crossing has a fixed shape:
+ * <ul>
+ *     <li>two pups go over and one comes back, until the pups are all across but one, who comes back;</li>
+ *     <li>then for each wolf: the wolf goes over, a pup comes back, two pups go over and one comes back;</li>
+ *     <li>the last round ends when the two pups go over with nothing left behind.</li>
+ * </ul>
+ * With fewer than two pups nothing can be brought back without undoing the trip that took it over, so only a single
+ * pup or a single wolf can cross, and with no animals at all there is no one to row the boat over. The steps are the
+ * same ones the BFS finds, and they are made one at a time as the stream is read, so any number of animals takes the
+ * same memory.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public class CrossingPlan implements Iterator<CrossingConfig> {
+
+    /**
+     * The total number of pups and wolves.
+     */
+    private final int totalPups;
+    private final int totalWolves;
+
+    /**
+     * The pups and wolves still on the left, and the boat side, of the next step.
+     */
+    private int pupsL;
+    private int wolvesL;
+    private char boat;
+
+    /**
+     * Whether every step has been given out.
+     */
+    private boolean done;
+
+    /**
+     * Starts the plan with every animal on the left.
+     *
+     * @param pups   The number of pups.
+     * @param wolves The number of wolves.
+     */
+    public CrossingPlan(int pups, int wolves) {
+        totalPups = pups;
+        totalWolves = wolves;
+        pupsL = pups;
+        wolvesL = wolves;
+        boat = 'L';
+        done = !isSolvable(pups, wolves);
+    }
+
+    /**
+     * Can every animal get across?
+     *
+     * @param pups   The number of pups.
+     * @param wolves The number of wolves.
+     * @return True if yes, otherwise no.
+     */
+    public static boolean isSolvable(int pups, int wolves) {
+        return pups >= 2 || pups + wolves == 1;
+    }
+
+    /**
+     * Gets the number of moves in the shortest crossing.
+     *
+     * @param pups   The number of pups.
+     * @param wolves The number of wolves.
+     * @return The number of moves, -1 if there is no crossing.
+     */
+    public static long moves(int pups, int wolves) {
+        if (!isSolvable(pups, wolves)) {
+            return -1;
+        }
+        if (pups < 2) {
+            return pups + wolves;
+        }
+        return 2L * pups - 3 + 4L * wolves;
+    }
+
+    /**
+     * Gets the steps of the shortest crossing, the start included, made as they are read.
+     *
+     * @param pups   The number of pups.
+     * @param wolves The number of wolves.
+     * @return The steps, or an empty stream if there is no crossing.
+     */
+    public static Stream<CrossingConfig> steps(int pups, int wolves) {
+        long size = moves(pups, wolves) + 1;
+        Spliterator<CrossingConfig> steps = Spliterators.spliterator(new CrossingPlan(pups, wolves), size,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(steps, false);
+    }
+
+    /**
+     * Are there more steps?
+     *
+     * @return True if yes, otherwise no.
+     */
+    @Override
+    public boolean hasNext() {
+        return !done;
+    }
+
+    /**
+     * Gets the next step and works out the one after it.
+     *
+     * @return The step.
+     */
+    @Override
+    public CrossingConfig next() {
+        if (done) {
+            throw new NoSuchElementException();
+        }
+        CrossingConfig step = new CrossingConfig(pupsL, wolvesL, totalPups - pupsL, totalWolves - wolvesL, boat);
+        if (pupsL == 0 && wolvesL == 0 && boat == 'R') {
+            done = true;
+        } else if (boat == 'R') {
+            ++pupsL;
+            boat = 'L';
+        } else {
+            if (pupsL >= 2) {
+                pupsL -= 2;
+            } else if (wolvesL > 0) {
+                --wolvesL;
+            } else {
+                --pupsL;
+            }
+            boat = 'R';
+        }
+        return step;
+    }
+}
@@ -0,0 +1,258 @@
+package puzzles.hoppers.gui;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import puzzles.hoppers.model.HoppersModel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A view of the Hoppers board drawn on a single canvas, for boards too big to have a button per cell.
+ * <p>
+ * Clicks are turned into a row and column and passed to {@link HoppersModel#select(int, int)}. The board is scaled
+ * to fill the space it is given. When the model changes, only the cells that look different are drawn again, so a
+ * move costs the same on any size of board.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public class BoardCanvas extends Pane {
+
+    /**
+     * The biggest a cell is drawn when the board is first shown.
+     */
+    private final static double CELL_SIZE = 75;
+
+    /**
+     * The most space the board asks for when it is first shown.
+     */
+    private final static double MAX_SIZE = 900;
+
+    /**
+     * The width of the outline around a lilypad the selected frog can jump to and still solve the puzzle.
+     */
+    private final static double OUTLINE_WIDTH = 3;
+
+    /**
+     * The canvas the board is drawn on.
+     */
+    private final Canvas canvas = new Canvas();
+
+    /**
+     * The model the board belongs to.
+     */
+    private HoppersModel model;
+
+    /**
+     * The images for the cells, shared with the rest of the GUI.
+     */
+    private final Image redFrog;
+    private final Image greenFrog;
+    private final Image lilyPad;
+    private final Image water;
+
+    /**
+     * The grid being drawn.
+     */
+    private char[][] shown = new char[0][0];
+
+    /**
+     * The lilypads that are outlined right now.
+     */
+    private List<int[]> outlined = new ArrayList<>();
+
+    /**
+     * The size of a cell on the screen, and where the board starts so it is centered.
+     */
+    private double cell;
+    private double left;
+    private double top;
+
+    /**
+     * Creates the board view for a model.
+     *
+     * @param model     The model to show.
+     * @param redFrog   The image of the red frog.
+     * @param greenFrog The image of a green frog.
+     * @param lilyPad   The image of an empty lilypad.
+     * @param water     The image of water.
+     */
+    public BoardCanvas(HoppersModel model, Image redFrog, Image greenFrog, Image lilyPad, Image water) {
+        this.model = model;
+        this.redFrog = redFrog;
+        this.greenFrog = greenFrog;
+        this.lilyPad = lilyPad;
+        this.water = water;
+        getChildren().add(canvas);
+        canvas.setOnMouseClicked(event -> {
+            if (cell <= 0) {
+                return;
+            }
+            int r = (int) Math.floor((event.getY() - top) / cell);
+            int c = (int) Math.floor((event.getX() - left) / cell);
+            if (r >= 0 && r < rows() && c >= 0 && c < cols()) {
+                this.model.select(r, c);
+            }
+        });
+        show(model);
+    }
+
+    /**
+     * Brings the drawing up to date with the model. A board of a new size is drawn from scratch, otherwise only the
+     * cells whose character or outline changed are drawn again.
+     *
+     * @param model The model to show.
+     */
+    public void show(HoppersModel model) {
+        show(model, null);
+    }
+
+    /**
+     * Brings the drawing up to date with the model when only some cells can have changed. The outlines are always
+     * brought up to date.
+     *
+     * @param model   The model to show.
+     * @param changed The cells that might have changed, or null to check every cell.
+     */
+    public void show(HoppersModel model, List<int[]> changed) {
+        this.model = model;
+        char[][] grid = model.getGrid();
+        List<int[]> targets = model.getSolvableTargets();
+        if (grid.length != rows() || (grid.length > 0 && grid[0].length != cols())) {
+            shown = new char[grid.length][];
+            for (int r = 0; r < grid.length; ++r) {
+                shown[r] = grid[r].clone();
+            }
+            outlined = targets;
+            double size = Math.min(CELL_SIZE, MAX_SIZE / Math.max(1, Math.max(rows(), cols())));
+            setPrefSize(cols() * size, rows() * size);
+            requestLayout();
+            drawAll();
+            return;
+        }
+        if (changed != null) {
+            for (int[] target : changed) {
+                if (grid[target[0]][target[1]] != shown[target[0]][target[1]]) {
+                    shown[target[0]][target[1]] = grid[target[0]][target[1]];
+                    drawCell(target[0], target[1]);
+                }
+            }
+        } else {
+            for (int r = 0; r < grid.length; ++r) {
+                for (int c = 0; c < grid[r].length; ++c) {
+                    if (grid[r][c] != shown[r][c]) {
+                        shown[r][c] = grid[r][c];
+                        drawCell(r, c);
+                    }
+                }
+            }
+        }
+        List<int[]> old = outlined;
+        outlined = targets;
+        for (int[] target : old) {
+            drawCell(target[0], target[1]);
+        }
+        for (int[] target : outlined) {
+            drawCell(target[0], target[1]);
+        }
+    }
+
+    /**
+     * Sizes the canvas to the space the board was given and draws it again if the cells changed size.
+     */
+    @Override
+    protected void layoutChildren() {
+        double width = getWidth();
+        double height = getHeight();
+        if (canvas.getWidth() == width && canvas.getHeight() == height) {
+            return;
+        }
+        canvas.setWidth(width);
+        canvas.setHeight(height);
+        drawAll();
+    }
+
+    /**
+     * Works out the size of the cells and draws every cell.
+     */
+    private void drawAll() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        if (rows() == 0 || cols() == 0) {
+            cell = 0;
+            return;
+        }
+        cell = Math.min(canvas.getWidth() / cols(), canvas.getHeight() / rows());
+        left = (canvas.getWidth() - cell * cols()) / 2;
+        top = (canvas.getHeight() - cell * rows()) / 2;
+        for (int r = 0; r < rows(); ++r) {
+            for (int c = 0; c < cols(); ++c) {
+                drawCell(r, c);
+            }
+        }
+    }
+
+    /**
+     * Draws one cell over whatever was there before.
+     *
+     * @param r The row of the cell.
+     * @param c The column of the cell.
+     */
+    private void drawCell(int r, int c) {
+        if (cell <= 0) {
+            return;
+        }
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double x = left + c * cell;
+        double y = top + r * cell;
+        gc.clearRect(x, y, cell, cell);
+        gc.drawImage(imageFor(shown[r][c]), x, y, cell, cell);
+        for (int[] target : outlined) {
+            if (target[0] == r && target[1] == c) {
+                double inset = Math.min(OUTLINE_WIDTH, cell / 4);
+                gc.setStroke(Color.GOLD);
+                gc.setLineWidth(inset);
+                gc.strokeRect(x + inset / 2, y + inset / 2, cell - inset, cell - inset);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Picks the image for a cell of the grid.
+     *
+     * @param cell The character of the cell.
+     * @return The image.
+     */
+    private Image imageFor(char cell) {
+        if (cell == 'R') {
+            return redFrog;
+        } else if (cell == 'G') {
+            return greenFrog;
+        } else if (cell == '.') {
+            return lilyPad;
+        }
+        return water;
+    }
+
+    /**
+     * Gets the number of rows being drawn.
+     *
+     * @return The number of rows.
+     */
+    private int rows() {
+        return shown.length;
+    }
+
+    /**
+     * Gets the number of columns being drawn.
+     *
+     * @return The number of columns.
+     */
+    private int cols() {
+        return shown.length == 0 ? 0 : shown[0].length;
+    }
+}
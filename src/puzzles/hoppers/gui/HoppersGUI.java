@@ -9,8 +9,11 @@ import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
 import javafx.stage.FileChooser;
+import puzzles.common.CoalescingObserver;
 import puzzles.common.Observer;
+import puzzles.hoppers.model.HoppersEvent;
 import puzzles.hoppers.model.HoppersModel;
+import puzzles.hoppers.model.HoppersTablebase;
 
 import javafx.application.Application;
 import javafx.stage.Stage;
@@ -18,19 +21,30 @@ import javafx.stage.Stage;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * This is the GUI class for the Hoppers game. This implements the GUI using the HoppersModel
+ * <p>
+ * The model's events are collected by a {@link CoalescingObserver} and handed over once per frame, so a burst of
+ * moves is drawn once, and only the cells the events touched are looked at.
  *
  * @author Evan Prizel, emp4506
  */
-public class HoppersGUI extends Application implements Observer<HoppersModel, String> {
+public class HoppersGUI extends Application implements Observer<HoppersModel, List<HoppersEvent>> {
 
     /**
      * The resources directory is located directly underneath the gui package
      */
     private final static String RESOURCES_DIR = "resources/";
 
+    /**
+     * The style of a lilypad the selected frog can jump to and still solve the puzzle.
+     */
+    private final static String SOLVABLE_STYLE = "-fx-border-color: gold; -fx-border-width: 3;";
+
     /**
      * The current model that the GUI is displaying.
      */
@@ -66,6 +80,36 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
      */
     private GridPane gridPane;
 
+    /**
+     * The board drawn on a canvas, used instead of the gridpane when the GUI is started with --canvas.
+     */
+    private BoardCanvas boardCanvas;
+
+    /**
+     * The text of the label at the top.
+     */
+    private Label labelText;
+
+    /**
+     * The picture on each button of the gridpane, kept so a refresh only swaps the image of the cells that changed.
+     */
+    private ImageView[][] cells;
+
+    /**
+     * The buttons of the gridpane, kept so their outlines can be changed.
+     */
+    private Button[][] buttons;
+
+    /**
+     * The grid the gridpane is showing.
+     */
+    private char[][] shown;
+
+    /**
+     * The lilypads that are outlined right now.
+     */
+    private List<int[]> outlined = new ArrayList<>();
+
     /**
      * The images for the gridpane buttons.
      */
@@ -80,9 +124,13 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
      * @throws IOException This is basically ignored because the filename is valid from the args of the main method.
      */
     public void init() throws IOException {
-        filename = getParameters().getRaw().get(0);
-        this.model = new HoppersModel(filename);
-        model.addObserver(this);
+        List<String> args = getParameters().getRaw();
+        filename = args.get(args.size() - 1);
+        this.model = new HoppersModel(filename, HoppersTablebase.frogsFromArgs(args));
+        if (args.contains("--canvas")) {
+            boardCanvas = new BoardCanvas(model, redFrog, greenFrog, lilyPad, water);
+        }
+        model.addObserver(new CoalescingObserver<>(Platform::runLater, this));
     }
 
     /**
@@ -122,32 +170,105 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
     }
 
     /**
-     * Creates the gridpane that is full of the buttons with frogs, lilypads, and water.
+     * Creates the gridpane that is full of the buttons with frogs, lilypads, and water. This is only done when a
+     * board of a new size is shown, every other change goes through {@link #updateGPane(List)}.
      */
     public void createGPane() {
         Button button;
         this.gridPane = new GridPane();
         char[][] grid = model.getGrid();
-        for (int r = 0; r < model.getRows(); ++r) {
-            for (int c = 0; c < model.getCols(); ++c) {
+        cells = new ImageView[grid.length][grid.length == 0 ? 0 : grid[0].length];
+        buttons = new Button[cells.length][cells.length == 0 ? 0 : cells[0].length];
+        shown = new char[cells.length][];
+        for (int r = 0; r < cells.length; ++r) {
+            shown[r] = grid[r].clone();
+            for (int c = 0; c < cells[r].length; ++c) {
+                cells[r][c] = new ImageView(imageFor(grid[r][c]));
                 button = new Button();
-                if (grid[r][c] == 'R') {
-                    button.setGraphic(new ImageView(redFrog));
-                } else if (grid[r][c] == 'G') {
-                    button.setGraphic(new ImageView(greenFrog));
-                } else if (grid[r][c] == '.') {
-                    button.setGraphic(new ImageView(lilyPad));
-                } else if (grid[r][c] == '*') {
-                    button.setGraphic(new ImageView(water));
-                }
+                button.setGraphic(cells[r][c]);
                 int finalC = c;
                 int finalR = r;
                 button.setOnAction((event) -> model.select(finalR, finalC));
                 button.setMinSize(75, 75);
                 button.setMaxSize(75, 75);
+                buttons[r][c] = button;
                 gridPane.add(button, c, r);
             }
         }
+        outlined = new ArrayList<>();
+        updateOutlines();
+    }
+
+    /**
+     * Brings the gridpane up to date with the model. Only the cells whose character changed get a new image, and
+     * only the lilypads whose outline changed are restyled, so nothing is created or laid out again.
+     *
+     * @param changed The cells that might have changed, or null to check every cell.
+     * @return True if the board changed size and the gridpane had to be created again, otherwise false.
+     */
+    public boolean updateGPane(List<int[]> changed) {
+        char[][] grid = model.getGrid();
+        if (grid.length != shown.length || (grid.length > 0 && grid[0].length != shown[0].length)) {
+            createGPane();
+            return true;
+        }
+        if (changed != null) {
+            for (int[] cell : changed) {
+                updateCell(grid, cell[0], cell[1]);
+            }
+        } else {
+            for (int r = 0; r < grid.length; ++r) {
+                for (int c = 0; c < grid[r].length; ++c) {
+                    updateCell(grid, r, c);
+                }
+            }
+        }
+        updateOutlines();
+        return false;
+    }
+
+    /**
+     * Swaps the image of a cell if its character changed.
+     *
+     * @param grid The grid of the model.
+     * @param r    The row of the cell.
+     * @param c    The column of the cell.
+     */
+    private void updateCell(char[][] grid, int r, int c) {
+        if (grid[r][c] != shown[r][c]) {
+            shown[r][c] = grid[r][c];
+            cells[r][c].setImage(imageFor(grid[r][c]));
+        }
+    }
+
+    /**
+     * Outlines the lilypads the selected frog can jump to and still solve the puzzle, and clears the old outlines.
+     */
+    private void updateOutlines() {
+        for (int[] target : outlined) {
+            buttons[target[0]][target[1]].setStyle("");
+        }
+        outlined = model.getSolvableTargets();
+        for (int[] target : outlined) {
+            buttons[target[0]][target[1]].setStyle(SOLVABLE_STYLE);
+        }
+    }
+
+    /**
+     * Picks the image for a cell of the grid.
+     *
+     * @param cell The character of the cell.
+     * @return The image, shared by every cell showing the same thing.
+     */
+    private Image imageFor(char cell) {
+        if (cell == 'R') {
+            return redFrog;
+        } else if (cell == 'G') {
+            return greenFrog;
+        } else if (cell == '.') {
+            return lilyPad;
+        }
+        return water;
     }
 
     /**
@@ -157,7 +278,7 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
      */
     public void createLabel(String message) {
         label = new HBox();
-        Label labelText = new Label(message);
+        labelText = new Label(message);
         label.getChildren().add(labelText);
         label.setAlignment(Pos.CENTER);
     }
@@ -170,10 +291,14 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
     @Override
     public void start(Stage stage) {
         borderPane = new BorderPane();
-        createGPane();
         createHBox(stage);
         createLabel("Loaded: " + filename);
-        borderPane.setCenter(gridPane);
+        if (boardCanvas != null) {
+            borderPane.setCenter(boardCanvas);
+        } else {
+            createGPane();
+            borderPane.setCenter(gridPane);
+        }
         borderPane.setBottom(bottom);
         borderPane.setTop(label);
         Scene scene = new Scene(borderPane);
@@ -185,45 +310,62 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
     }
 
     /**
-     * Refreshes the view with the updated model.
+     * Refreshes the view with the updated model. The buttons at the bottom never change, and the label and gridpane
+     * are updated in place.
      *
      * @param model2  The updated model.
      * @param message The message from the observers telling the label what action the user took.
+     * @param changed The cells that might have changed, or null to check every cell.
+     * @return True if the board changed size, otherwise false.
      */
-    public void refresh(HoppersModel model2, String message) {
+    public boolean refresh(HoppersModel model2, String message, List<int[]> changed) {
         this.model = model2;
-        createGPane();
-        borderPane.setCenter(gridPane);
-        createHBox(stage);
-        borderPane.setBottom(bottom);
-        createLabel(message);
-        borderPane.setTop(label);
+        labelText.setText(message);
+        if (boardCanvas != null) {
+            boardCanvas.show(model, changed);
+            return false;
+        }
+        if (updateGPane(changed)) {
+            borderPane.setCenter(gridPane);
+            return true;
+        }
+        return false;
     }
 
     /**
-     * Calls the refresh method to update the view.
+     * Refreshes the view once for a batch of events. The label shows the last message, and only the cells the events
+     * touched are checked unless one of them loaded or reset the board. This is called on the JavaFX thread.
      *
      * @param hoppersModel The updated model.
-     * @param msg          The message from the observers telling the label what action the user took.
+     * @param events       The events since the last update, oldest first.
      */
     @Override
-    public void update(HoppersModel hoppersModel, String msg) {
-        if (Platform.isFxApplicationThread()) {
-            this.refresh(model, msg);
+    public void update(HoppersModel hoppersModel, List<HoppersEvent> events) {
+        List<int[]> changed = new ArrayList<>();
+        for (HoppersEvent event : events) {
+            if (event.isNewBoard()) {
+                changed = null;
+                break;
+            }
+            changed.addAll(event.cells());
+        }
+        if (this.refresh(hoppersModel, events.get(events.size() - 1).message(), changed)) {
             stage.sizeToScene();
-        } else {
-            Platform.runLater(() -> this.refresh(model, msg));
         }
     }
 
     /**
-     * Launches the application and checks that the args are the correct length.
+     * Launches the application and checks that the args are the correct length. The --canvas switch draws the board
+     * on a {@link BoardCanvas}, which scales to the window and handles much bigger boards than the buttons do. The
+     * --endgame=K switch answers hints from a {@link HoppersTablebase} once K frogs are left.
      *
      * @param args Command arguments.
      */
     public static void main(String[] args) {
-        if (args.length != 1) {
-            System.out.println("Usage: java HoppersPTUI filename");
+        long switches = Arrays.stream(args).limit(Math.max(0, args.length - 1))
+                .filter(arg -> arg.equals("--canvas") || arg.startsWith(HoppersTablebase.SWITCH)).count();
+        if (args.length == 0 || switches != args.length - 1) {
+            System.out.println("Usage: java HoppersGUI [--canvas] [--endgame=K] filename");
         } else {
             Application.launch(args);
         }
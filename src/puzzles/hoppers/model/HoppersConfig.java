@@ -1,6 +1,12 @@
 package puzzles.hoppers.model;
 
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.EndgameConfiguration;
+import puzzles.common.solver.KeyedConfiguration;
+import puzzles.common.solver.MutableConfiguration;
+import puzzles.common.solver.MutableState;
+import puzzles.common.solver.PrunableConfiguration;
+import puzzles.common.solver.SymmetricConfiguration;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
@@ -8,41 +14,65 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Objects;
+import java.util.List;
 
 /**
  * This is the Hoppers Config that the common solver will use.
+ * <p>
+ * The frogs are stored as bitboards: one bit per lily pad for the green frogs and one for the red frogs. Everything
+ * that never changes while playing a board (the water, the pad numbering and every legal jump) lives in a
+ * {@link HoppersLayout} that all the configurations of one loaded file share.
+ * <p>
+ * As a key, the green frogs take one bit per pad. When the board has a single red frog only its pad number is
+ * stored, otherwise the red frogs also take one bit per pad.
+ * <p>
+ * When the board is loaded, every mirror image and rotation that maps the lily pads and the jumps onto themselves is
+ * kept as a symmetry. The representative of a configuration is the image with the smallest bitboards.
+ * <p>
+ * Every configuration carries a 64-bit Zobrist hash: the XOR of a random number for each frog and the pad it is on.
+ * A jump changes three pads, so a neighbor's hash is its parent's with three numbers XORed in.
+ * <p>
+ * A configuration can be proven dead without searching. Jumps never take a red frog off. A frog never leaves
+ * the class of pads it can move around in, so a green frog can only be taken off by a frog of a class that has a
+ * jump over some pad of the green frog's class, and once a class is empty it stays empty.
+ * <p>
+ * A configuration given a {@link HoppersTablebase} passes it on to every configuration made from it, and a search
+ * stops as soon as the frogs left are few enough for the table to say how the board ends.
  *
  * @author Evan Prizel, emp4506
  */
-public class HoppersConfig implements Configuration {
+public class HoppersConfig implements KeyedConfiguration, SymmetricConfiguration, MutableConfiguration,
+        EndgameConfiguration, PrunableConfiguration {
 
     /**
-     * The number of rows of the grid.
+     * The layout of the board this configuration is played on.
      */
-    private int numRows;
+    private final HoppersLayout board;
 
     /**
-     * The number of columns of the grid.
+     * One bit per lily pad, set when a green frog is sitting on it.
      */
-    private int numCols;
+    private final long[] green;
 
     /**
-     * The grid which stores the location of each frog and the available/unavailable spaces it can go to.
+     * One bit per lily pad, set when a red frog is sitting on it.
      */
-    private char[][] grid;
+    private final long[] red;
 
     /**
-     * All possible directions that frogs are able to jump.
+     * The Zobrist hash of the frogs.
      */
-    private final static String DOWN = "DOWN";
-    private final static String LEFT = "LEFT";
-    private final static String RIGHT = "RIGHT";
-    private final static String UP = "UP";
-    private final static String UPLEFT = "UPLEFT";
-    private final static String UPRIGHT = "UPRIGHT";
-    private final static String DOWNLEFT = "DOWNLEFT";
-    private final static String DOWNRIGHT = "DOWNRIGHT";
+    private final long hash;
+
+    /**
+     * The endgame table searches from this configuration look positions up in, null if there is none.
+     */
+    private final HoppersTablebase endgame;
+
+    /**
+     * The grid of chars that is built the first time the view asks for it.
+     */
+    private char[][] grid;
 
     /**
      * An open space a frog can jump on.
@@ -59,6 +89,32 @@ public class HoppersConfig implements Configuration {
      */
     private final static char RED = 'R';
 
+    /**
+     * Water, which a frog can never land on.
+     */
+    private final static char WATER = '*';
+
+    /**
+     * The rule that finds a board without exactly one red frog, which no jump can fix.
+     */
+    public final static String RED_COUNT = "red count";
+
+    /**
+     * The rule that finds a green frog in a class of pads no jump goes over, which can never be taken off.
+     */
+    public final static String STRANDED_GREEN = "stranded green";
+
+    /**
+     * The rule that finds a green frog that no frog left is in the right class to jump over.
+     */
+    public final static String UNREACHABLE_CLASS = "unreachable class";
+
+    /**
+     * The rule that finds a red frog that can't jump over any green frog left. The frog making the last jump is the
+     * one left on the board, so the red frog has to be able to take the last green frog off.
+     */
+    public final static String RED_CANNOT_FINISH = "red can't finish";
+
     /**
      * Creates the configuration that reads the file and creates the frog grid.
      *
@@ -66,18 +122,70 @@ public class HoppersConfig implements Configuration {
      * @throws IOException Not needed because the file passed in is valid. (Needs it for compiling)
      */
     public HoppersConfig(String filename) throws IOException {
+        char[][] cells;
         try (BufferedReader in = new BufferedReader(new FileReader(filename))) {
             String[] fields = in.readLine().split("\\s+");
-            numRows = Integer.parseInt(fields[0]);
-            numCols = Integer.parseInt(fields[1]);
-            grid = new char[numRows][numCols];
+            int numRows = Integer.parseInt(fields[0]);
+            int numCols = Integer.parseInt(fields[1]);
+            cells = new char[numRows][numCols];
             for (int i = 0; i < numRows; i++) {
                 String[] line = in.readLine().split("\\s+");
                 for (int j = 0; j < numCols; ++j) {
-                    grid[i][j] = line[j].charAt(0);
+                    cells[i][j] = line[j].charAt(0);
                 }
             }
         }
+        board = new HoppersLayout(cells);
+        green = new long[board.words];
+        red = new long[board.words];
+        for (int pad = 0; pad < board.numPads; ++pad) {
+            char cell = cells[board.padRow[pad]][board.padCol[pad]];
+            if (cell == GREEN) {
+                green[pad >>> 6] |= 1L << pad;
+            } else if (cell == RED) {
+                red[pad >>> 6] |= 1L << pad;
+            }
+        }
+        hash = zobrist(board, green, red);
+        endgame = null;
+    }
+
+    /**
+     * The copy constructor that the getneighbors function uses to create the neighbors of a given frog.
+     *
+     * @param parent The configuration the frog jumps in.
+     * @param from   The pad the frog jumps from.
+     * @param over   The pad of the green frog that is jumped over.
+     * @param to     The pad the frog lands on.
+     */
+    private HoppersConfig(HoppersConfig parent, int from, int over, int to) {
+        this.board = parent.board;
+        this.green = parent.green.clone();
+        this.red = parent.red.clone();
+        boolean redMoves = isSet(red, from);
+        long[] mover = redMoves ? red : green;
+        long[] moverKeys = redMoves ? board.redKeys : board.greenKeys;
+        mover[from >>> 6] &= ~(1L << from);
+        green[over >>> 6] &= ~(1L << over);
+        mover[to >>> 6] |= 1L << to;
+        this.hash = parent.hash ^ moverKeys[from] ^ board.greenKeys[over] ^ moverKeys[to];
+        this.endgame = parent.endgame;
+    }
+
+    /**
+     * Creates the configuration with the given frogs, used when rebuilding a configuration from its key.
+     *
+     * @param board   The layout of the board.
+     * @param endgame The endgame table, null if there is none.
+     * @param green   The green frog bitboard.
+     * @param red     The red frog bitboard.
+     */
+    private HoppersConfig(HoppersLayout board, HoppersTablebase endgame, long[] green, long[] red) {
+        this.board = board;
+        this.endgame = endgame;
+        this.green = green;
+        this.red = red;
+        this.hash = zobrist(board, green, red);
     }
 
     /**
@@ -86,7 +194,7 @@ public class HoppersConfig implements Configuration {
      * @return The number of rows.
      */
     public int getNumRows() {
-        return numRows;
+        return board.numRows;
     }
 
     /**
@@ -95,7 +203,7 @@ public class HoppersConfig implements Configuration {
      * @return The number of columns.
      */
     public int getNumCols() {
-        return numCols;
+        return board.numCols;
     }
 
     /**
@@ -104,66 +212,190 @@ public class HoppersConfig implements Configuration {
      * @return The grid of frogs.
      */
     public char[][] getGrid() {
+        if (grid == null) {
+            char[][] cells = new char[board.numRows][board.numCols];
+            for (int r = 0; r < board.numRows; ++r) {
+                for (int c = 0; c < board.numCols; ++c) {
+                    int pad = board.padIndex[r][c];
+                    if (pad < 0) {
+                        cells[r][c] = WATER;
+                    } else if (isSet(green, pad)) {
+                        cells[r][c] = GREEN;
+                    } else if (isSet(red, pad)) {
+                        cells[r][c] = RED;
+                    } else {
+                        cells[r][c] = EMPTY;
+                    }
+                }
+            }
+            grid = cells;
+        }
         return grid;
     }
 
     /**
-     * The copy constructor that the getneighbors function uses to create the neighbors of a given frog.
+     * Gets the number of lily pads, numbered row by row from the top left.
      *
-     * @param numRows The number of rows.
-     * @param numCols The number of columns.
-     * @param grid    The grid of frogs.
-     * @param change  The direction to change the frog.
-     * @param color   The color of the frog it wants to change.
-     * @param curR    The current row of the frog.
-     * @param curC    The current column of the frog.
-     */
-    public HoppersConfig(int numRows, int numCols, char[][] grid, String change, char color, int curR, int curC) {
-        this.numRows = numRows;
-        this.numCols = numCols;
-        this.grid = new char[numRows][numCols];
-        for (int i = 0; i < numRows; i++) {
-            System.arraycopy(grid[i], 0, this.grid[i], 0, grid[i].length);
-        }
-        this.grid[curR][curC] = EMPTY;
-        switch (change) {
-            case DOWN -> {
-                this.grid[curR + 2][curC] = EMPTY;
-                this.grid[curR + 4][curC] = color;
-            }
-            case UP -> {
-                this.grid[curR - 2][curC] = EMPTY;
-                this.grid[curR - 4][curC] = color;
-            }
-            case LEFT -> {
-                this.grid[curR][curC - 2] = EMPTY;
-                this.grid[curR][curC - 4] = color;
-            }
-            case RIGHT -> {
-                this.grid[curR][curC + 2] = EMPTY;
-                this.grid[curR][curC + 4] = color;
-            }
-            case UPLEFT -> {
-                this.grid[curR - 1][curC - 1] = EMPTY;
-                this.grid[curR - 2][curC - 2] = color;
-            }
-            case UPRIGHT -> {
-                this.grid[curR - 1][curC + 1] = EMPTY;
-                this.grid[curR - 2][curC + 2] = color;
+     * @return The number of pads.
+     */
+    int getNumPads() {
+        return board.numPads;
+    }
+
+    /**
+     * Was the board loaded with exactly one red frog?
+     *
+     * @return True if yes, otherwise no.
+     */
+    boolean hasSingleRed() {
+        return board.singleRed;
+    }
+
+    /**
+     * Gets the green frog bitboard, one bit per pad. It must not be changed.
+     *
+     * @return The bitboard.
+     */
+    long[] greenBits() {
+        return green;
+    }
+
+    /**
+     * Gets the red frog bitboard, one bit per pad. It must not be changed.
+     *
+     * @return The bitboard.
+     */
+    long[] redBits() {
+        return red;
+    }
+
+    /**
+     * Creates a configuration on the same board with the given frogs.
+     *
+     * @param newGreen The green frog bitboard, which the configuration takes over.
+     * @param newRed   The red frog bitboard, which the configuration takes over.
+     * @return The configuration.
+     */
+    HoppersConfig withFrogs(long[] newGreen, long[] newRed) {
+        return new HoppersConfig(board, endgame, newGreen, newRed);
+    }
+
+    /**
+     * Is the other configuration played on the same board, so that their keys can be compared?
+     *
+     * @param other The other configuration.
+     * @return True if yes, otherwise no.
+     */
+    public boolean sameBoard(HoppersConfig other) {
+        return board.sameLayout(other.board) && board.singleRed == other.board.singleRed;
+    }
+
+    /**
+     * Gets the layout of the board, which every configuration of the board shares.
+     *
+     * @return The layout.
+     */
+    public HoppersLayout getLayout() {
+        return board;
+    }
+
+    /**
+     * Can the given jump be made: is there a frog on the pad it starts from, a green frog on the pad it goes over and
+     * nothing on the pad it lands on?
+     *
+     * @param jump The index of the jump in the layout.
+     * @return True if yes, otherwise no.
+     */
+    public boolean canJump(int jump) {
+        int from = board.jumpFrom[jump];
+        int to = board.jumpTo[jump];
+        return (isSet(green, from) || isSet(red, from)) && isSet(green, board.jumpOver[jump])
+                && !isSet(green, to) && !isSet(red, to);
+    }
+
+    /**
+     * Creates the configuration after the given jump. The jump must be valid, see {@link #canJump(int)}.
+     *
+     * @param jump The index of the jump in the layout.
+     * @return The new configuration.
+     */
+    public HoppersConfig jump(int jump) {
+        return new HoppersConfig(this, board.jumpFrom[jump], board.jumpOver[jump], board.jumpTo[jump]);
+    }
+
+    /**
+     * Creates the same configuration with an endgame table that searches from it, and from every configuration made
+     * from it, look positions up in.
+     *
+     * @param table The endgame table, null for none.
+     * @return The configuration with the table.
+     */
+    public HoppersConfig withEndgame(HoppersTablebase table) {
+        return table == endgame ? this : new HoppersConfig(board, table, green, red);
+    }
+
+    /**
+     * Are there few enough frogs left for the endgame table to know whether the board can be solved?
+     *
+     * @return True if yes, otherwise no.
+     */
+    @Override
+    public boolean inEndgame() {
+        return endgame != null && endgame.covers(this);
+    }
+
+    /**
+     * Gets the rest of a solution from the endgame table.
+     *
+     * @return The configurations after this one up to the solution, or null if there is none.
+     */
+    @Override
+    public List<Configuration> finishEndgame() {
+        List<HoppersConfig> ending = endgame.finish(this);
+        return ending == null ? null : new ArrayList<>(ending);
+    }
+
+    /**
+     * Checks the rules that prove a board can't be solved, which takes one pass over the frogs.
+     *
+     * @return {@link #RED_COUNT}, {@link #STRANDED_GREEN}, {@link #UNREACHABLE_CLASS} or
+     * {@link #RED_CANNOT_FINISH}, whichever proves it first, or null if none of them does.
+     */
+    @Override
+    public String deadEnd() {
+        int reds = 0;
+        long classes = 0;
+        long redClass = 0;
+        for (int w = 0; w < board.words; ++w) {
+            reds += Long.bitCount(red[w]);
+            for (long frogs = green[w] | red[w]; frogs != 0; frogs &= frogs - 1) {
+                classes |= board.classBit[(w << 6) + Long.numberOfTrailingZeros(frogs)];
             }
-            case DOWNLEFT -> {
-                this.grid[curR + 1][curC - 1] = EMPTY;
-                this.grid[curR + 2][curC - 2] = color;
+            if (red[w] != 0) {
+                redClass = board.classBit[(w << 6) + Long.numberOfTrailingZeros(red[w])];
             }
-            case DOWNRIGHT -> {
-                this.grid[curR + 1][curC + 1] = EMPTY;
-                this.grid[curR + 2][curC + 2] = color;
+        }
+        if (reds != 1) {
+            return RED_COUNT;
+        }
+        boolean greens = false;
+        boolean redFinishes = false;
+        for (int w = 0; w < board.words; ++w) {
+            for (long frogs = green[w]; frogs != 0; frogs &= frogs - 1) {
+                long jumpers = board.jumpedBy[(w << 6) + Long.numberOfTrailingZeros(frogs)];
+                if (jumpers == 0) {
+                    return STRANDED_GREEN;
+                }
+                if ((jumpers & classes) == 0) {
+                    return UNREACHABLE_CLASS;
+                }
+                greens = true;
+                redFinishes |= (jumpers & redClass) != 0;
             }
         }
-
+        return greens && !redFinishes ? RED_CANNOT_FINISH : null;
     }
 
-
     /**
      * Is the given configuration a solution?
      *
@@ -171,71 +403,26 @@ public class HoppersConfig implements Configuration {
      */
     @Override
     public boolean isSolution() {
-        int totalReds = 0;
-        for (int i = 0; i < numRows; ++i) {
-            for (int j = 0; j < numCols; ++j) {
-                if (grid[i][j] == 'R') {
-                    totalReds++;
-                } else if (grid[i][j] == 'G') {
-                    return false;
-                }
-            }
-        }
-        return totalReds == 1;
+        return isSolution(board, green, red);
     }
 
     /**
-     * Is the wanted move valid?
+     * Is the single frog left on the board a red one?
      *
-     * @param change The direction the frog wants to move in.
-     * @param r      The current row of the frog.
-     * @param c      The current column of the frog.
+     * @param board The layout of the board.
+     * @param green The green frog bitboard.
+     * @param red   The red frog bitboard.
      * @return True if yes, otherwise no.
      */
-    public boolean contains(String change, int r, int c) {
-        switch (change) {
-            case UP:
-                if ((r - 4 >= 0) && (grid[r - 4][c] == EMPTY) && (grid[r - 2][c] == 'G')) {
-                    return true;
-                }
-                break;
-            case DOWN:
-                if ((r + 4 <= numRows - 1) && (grid[r + 4][c] == EMPTY) && (grid[r + 2][c] == 'G')) {
-                    return true;
-                }
-                break;
-            case LEFT:
-                if ((c - 4 >= 0) && (grid[r][c - 4] == EMPTY) && (grid[r][c - 2] == 'G')) {
-                    return true;
-                }
-                break;
-            case RIGHT:
-                if ((c + 4 <= numCols - 1) && (grid[r][c + 4] == EMPTY) && (grid[r][c + 2] == 'G')) {
-                    return true;
-                }
-                break;
-            case UPLEFT:
-                if ((c - 2 >= 0) && (r - 2 >= 0) && (grid[r - 2][c - 2] == EMPTY) && (grid[r - 1][c - 1] == 'G')) {
-                    return true;
-                }
-                break;
-            case UPRIGHT:
-                if ((r - 2 >= 0) && (c + 2 <= numCols - 1) && (grid[r - 2][c + 2] == EMPTY) && (grid[r - 1][c + 1] == 'G')) {
-                    return true;
-                }
-                break;
-            case DOWNLEFT:
-                if ((c - 2 >= 0) && (r + 2 <= numRows - 1) && (grid[r + 2][c - 2] == EMPTY) && (grid[r + 1][c - 1] == 'G')) {
-                    return true;
-                }
-                break;
-            case DOWNRIGHT:
-                if ((r + 2 <= numRows - 1) && (c + 2 <= numCols - 1) && (grid[r + 2][c + 2] == EMPTY) && (grid[r + 1][c + 1] == GREEN)) {
-                    return true;
-                }
-                break;
+    private static boolean isSolution(HoppersLayout board, long[] green, long[] red) {
+        int totalReds = 0;
+        for (int w = 0; w < board.words; ++w) {
+            if (green[w] != 0) {
+                return false;
+            }
+            totalReds += Long.bitCount(red[w]);
         }
-        return false;
+        return totalReds == 1;
     }
 
     /**
@@ -249,7 +436,8 @@ public class HoppersConfig implements Configuration {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         HoppersConfig that = (HoppersConfig) o;
-        return numRows == that.numRows && numCols == that.numCols && Arrays.deepEquals(grid, that.grid);
+        return hash == that.hash && Arrays.equals(green, that.green) && Arrays.equals(red, that.red)
+                && board.sameLayout(that.board);
     }
 
     /**
@@ -259,68 +447,28 @@ public class HoppersConfig implements Configuration {
      */
     @Override
     public int hashCode() {
-        int result = Objects.hash(numRows, numCols);
-        result = 31 * result + Arrays.deepHashCode(grid);
-        return result;
+        return (int) (hash ^ (hash >>> 32));
     }
 
     /**
-     * Get the neighbors of a given configuration.
+     * Get the neighbors of a given configuration. The frogs are visited from the top left to the bottom right, and
+     * each frog tries its jumps in the order the board precomputed for it.
      *
      * @return The collection of neighbors of the given configuration.
      */
     @Override
     public Collection<Configuration> getNeighbors() {
         ArrayList<Configuration> neighbors = new ArrayList<>();
-        for (int r = 0; r < numRows; ++r) {
-            if (r % 2 == 0) {
-                for (int c = 0; c < numCols; ++c) {
-                    if (grid[r][c] == GREEN || grid[r][c] == RED) {
-                        if (c % 2 == 0) {
-                            if (contains(UP, r, c)) {
-                                neighbors.add(new HoppersConfig(numRows, numCols, grid.clone(), UP, grid[r][c], r, c));
-                            }
-                            if (contains(RIGHT, r, c)) {
-                                neighbors.add(new HoppersConfig(numRows, numCols, grid.clone(), RIGHT, grid[r][c], r, c));
-                            }
-                            if (contains(LEFT, r, c)) {
-                                neighbors.add(new HoppersConfig(numRows, numCols, grid.clone(), LEFT, grid[r][c], r, c));
-                            }
-                            if (contains(DOWN, r, c)) {
-                                neighbors.add(new HoppersConfig(numRows, numCols, grid.clone(), DOWN, grid[r][c], r, c));
-                            }
-                            if (contains(DOWNRIGHT, r, c)) {
-                                neighbors.add(new HoppersConfig(numRows, numCols, grid.clone(), DOWNRIGHT, grid[r][c], r, c));
-                            }
-                            if (contains(DOWNLEFT, r, c)) {
-                                neighbors.add(new HoppersConfig(numRows, numCols, grid.clone(), DOWNLEFT, grid[r][c], r, c));
-                            }
-                            if (contains(UPRIGHT, r, c)) {
-                                neighbors.add(new HoppersConfig(numRows, numCols, grid.clone(), UPRIGHT, grid[r][c], r, c));
-                            }
-                            if (contains(UPLEFT, r, c)) {
-                                neighbors.add(new HoppersConfig(numRows, numCols, grid.clone(), UPLEFT, grid[r][c], r, c));
-                            }
-                        }
-                    }
-                }
-            } else {
-                for (int c = 0; c < numCols; ++c) {
-                    if (grid[r][c] == GREEN || grid[r][c] == RED) {
-                        if (c % 2 == 1) {
-                            if (contains(DOWNRIGHT, r, c)) {
-                                neighbors.add(new HoppersConfig(numRows, numCols, grid.clone(), DOWNRIGHT, grid[r][c], r, c));
-                            }
-                            if (contains(DOWNLEFT, r, c)) {
-                                neighbors.add(new HoppersConfig(numRows, numCols, grid.clone(), DOWNLEFT, grid[r][c], r, c));
-                            }
-                            if (contains(UPRIGHT, r, c)) {
-                                neighbors.add(new HoppersConfig(numRows, numCols, grid.clone(), UPRIGHT, grid[r][c], r, c));
-                            }
-                            if (contains(UPLEFT, r, c)) {
-                                neighbors.add(new HoppersConfig(numRows, numCols, grid.clone(), UPLEFT, grid[r][c], r, c));
-                            }
-                        }
+        for (int w = 0; w < board.words; ++w) {
+            long frogs = green[w] | red[w];
+            while (frogs != 0) {
+                int from = (w << 6) + Long.numberOfTrailingZeros(frogs);
+                frogs &= frogs - 1;
+                for (int j = board.jumpStart[from]; j < board.jumpStart[from + 1]; ++j) {
+                    int over = board.jumpOver[j];
+                    int to = board.jumpTo[j];
+                    if (isSet(green, over) && !isSet(green, to) && !isSet(red, to)) {
+                        neighbors.add(new HoppersConfig(this, from, over, to));
                     }
                 }
             }
@@ -328,6 +476,160 @@ public class HoppersConfig implements Configuration {
         return neighbors;
     }
 
+    /**
+     * Gets the image of this configuration with the smallest bitboards, over all the symmetries of the board.
+     *
+     * @return The representative of the symmetry class.
+     */
+    @Override
+    public HoppersConfig canonical() {
+        HoppersConfig best = this;
+        for (int[] symmetry : board.symmetries) {
+            long[] imageGreen = permute(green, symmetry);
+            long[] imageRed = permute(red, symmetry);
+            if (compare(imageGreen, imageRed, best.green, best.red) < 0) {
+                best = new HoppersConfig(board, endgame, imageGreen, imageRed);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Moves every bit of a bitboard to the pad the symmetry sends it to.
+     *
+     * @param bits     The bitboard.
+     * @param symmetry The pad each pad is sent to.
+     * @return The new bitboard.
+     */
+    private long[] permute(long[] bits, int[] symmetry) {
+        long[] image = new long[board.words];
+        for (int w = 0; w < board.words; ++w) {
+            long frogs = bits[w];
+            while (frogs != 0) {
+                int pad = symmetry[(w << 6) + Long.numberOfTrailingZeros(frogs)];
+                frogs &= frogs - 1;
+                image[pad >>> 6] |= 1L << pad;
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Orders two configurations by their bitboards, green first.
+     *
+     * @param green1 The green frogs of the first configuration.
+     * @param red1   The red frogs of the first configuration.
+     * @param green2 The green frogs of the second configuration.
+     * @param red2   The red frogs of the second configuration.
+     * @return Negative, zero or positive when the first is smaller, equal or bigger.
+     */
+    private static int compare(long[] green1, long[] red1, long[] green2, long[] red2) {
+        int result = Arrays.compareUnsigned(green1, green2);
+        return result != 0 ? result : Arrays.compareUnsigned(red1, red2);
+    }
+
+    /**
+     * Gets the number of longs in the key.
+     *
+     * @return The width of the key.
+     */
+    @Override
+    public int keyWidth() {
+        return (board.numPads + board.redBits() + 63) >>> 6;
+    }
+
+    /**
+     * Packs the frogs into the key.
+     *
+     * @param key    The array the key is written to.
+     * @param offset The index of the first long of the key.
+     */
+    @Override
+    public void writeKey(long[] key, int offset) {
+        writeKey(board, green, red, key, offset);
+    }
+
+    /**
+     * Unpacks the frogs from the key.
+     *
+     * @param key    The array the key is read from.
+     * @param offset The index of the first long of the key.
+     * @return The configuration the key was made from.
+     */
+    @Override
+    public HoppersConfig fromKey(long[] key, int offset) {
+        long[] newGreen = new long[board.words];
+        long[] newRed = new long[board.words];
+        readKey(board, key, offset, newGreen, newRed);
+        return new HoppersConfig(board, endgame, newGreen, newRed);
+    }
+
+    /**
+     * Gets how many levels back a neighbor can already have been seen. Every jump takes a frog off the board, so a
+     * configuration's level is set by how many frogs are left, and a neighbor is never on a level that came before.
+     *
+     * @return 0, since only the new level itself can hold repeats.
+     */
+    @Override
+    public int repeatLevels() {
+        return 0;
+    }
+
+    /**
+     * Creates a copy of the frogs that can be searched in place.
+     *
+     * @return The new state.
+     */
+    @Override
+    public MutableState newState() {
+        return new State(board, endgame, green.clone(), red.clone());
+    }
+
+    /**
+     * Packs frogs into a key. Nothing is allocated, so it can be called for every neighbor of a search.
+     *
+     * @param board  The layout of the board.
+     * @param green  The green frog bitboard.
+     * @param red    The red frog bitboard.
+     * @param key    The array the key is written to.
+     * @param offset The index of the first long of the key.
+     */
+    private static void writeKey(HoppersLayout board, long[] green, long[] red, long[] key, int offset) {
+        Arrays.fill(key, offset, offset + ((board.numPads + board.redBits() + 63) >>> 6), 0);
+        writeBits(key, offset, 0, green, board.numPads);
+        if (board.singleRed) {
+            long redPad = 0;
+            for (int w = 0; w < board.words; ++w) {
+                if (red[w] != 0) {
+                    redPad = (w << 6) + Long.numberOfTrailingZeros(red[w]);
+                }
+            }
+            writeWord(key, offset, board.numPads, redPad, board.redBits());
+        } else {
+            writeBits(key, offset, board.numPads, red, board.numPads);
+        }
+    }
+
+    /**
+     * Unpacks frogs from a key into the given bitboards.
+     *
+     * @param board  The layout of the board.
+     * @param key    The array the key is read from.
+     * @param offset The index of the first long of the key.
+     * @param green  The green frog bitboard to fill.
+     * @param red    The red frog bitboard to fill.
+     */
+    private static void readKey(HoppersLayout board, long[] key, int offset, long[] green, long[] red) {
+        readBits(key, offset, 0, green, board.numPads);
+        if (board.singleRed) {
+            int redPad = (int) readWord(key, offset, board.numPads, board.redBits());
+            Arrays.fill(red, 0);
+            red[redPad >>> 6] |= 1L << redPad;
+        } else {
+            readBits(key, offset, board.numPads, red, board.numPads);
+        }
+    }
+
     /**
      * Creates a string representation of the configuration.
      *
@@ -335,17 +637,272 @@ public class HoppersConfig implements Configuration {
      */
     @Override
     public String toString() {
-        String str1 = "";
-        String str2;
-        String result = "";
-        for (int r = 0; r < numRows; ++r) {
-            for (int c = 0; c < numCols; ++c) {
-                str2 = String.valueOf(grid[r][c]);
-                str1 = str1 + " " + str2;
+        char[][] cells = getGrid();
+        StringBuilder result = new StringBuilder();
+        for (int r = 0; r < board.numRows; ++r) {
+            for (int c = 0; c < board.numCols; ++c) {
+                result.append(' ').append(cells[r][c]);
+            }
+            result.append('\n');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Works out the Zobrist hash of the frogs from scratch.
+     *
+     * @param board The layout of the board.
+     * @param green The green frog bitboard.
+     * @param red   The red frog bitboard.
+     * @return The XOR of the random number of every frog on its pad.
+     */
+    private static long zobrist(HoppersLayout board, long[] green, long[] red) {
+        long result = 0;
+        for (int w = 0; w < board.words; ++w) {
+            for (long frogs = green[w]; frogs != 0; frogs &= frogs - 1) {
+                result ^= board.greenKeys[(w << 6) + Long.numberOfTrailingZeros(frogs)];
+            }
+            for (long frogs = red[w]; frogs != 0; frogs &= frogs - 1) {
+                result ^= board.redKeys[(w << 6) + Long.numberOfTrailingZeros(frogs)];
             }
-            result = result + str1 + "\n";
-            str1 = "";
         }
         return result;
     }
+
+    /**
+     * Is the bit of the given pad set in the bitboard?
+     *
+     * @param bits The bitboard.
+     * @param pad  The pad index.
+     * @return True if yes, otherwise no.
+     */
+    static boolean isSet(long[] bits, int pad) {
+        return (bits[pad >>> 6] & (1L << pad)) != 0;
+    }
+
+    /**
+     * Copies the low bits of a bitboard into a key, starting at the given bit of the key.
+     *
+     * @param key    The key.
+     * @param offset The index of the first long of the key.
+     * @param start  The first bit of the key to write.
+     * @param bits   The bitboard.
+     * @param count  The number of bits to copy.
+     */
+    private static void writeBits(long[] key, int offset, int start, long[] bits, int count) {
+        for (int i = 0; i < count; i += 64) {
+            writeWord(key, offset, start + i, bits[i >>> 6], Math.min(64, count - i));
+        }
+    }
+
+    /**
+     * Copies the low bits of a long into a key, starting at the given bit of the key.
+     *
+     * @param key    The key.
+     * @param offset The index of the first long of the key.
+     * @param start  The first bit of the key to write.
+     * @param word   The bits.
+     * @param count  The number of bits to copy, at most 64.
+     */
+    private static void writeWord(long[] key, int offset, int start, long word, int count) {
+        if (count < 64) {
+            word &= (1L << count) - 1;
+        }
+        key[offset + (start >>> 6)] |= word << start;
+        if ((start & 63) != 0 && (start >>> 6) + 1 < ((start + count + 63) >>> 6)) {
+            key[offset + (start >>> 6) + 1] |= word >>> (64 - (start & 63));
+        }
+    }
+
+    /**
+     * Copies bits of a key, starting at the given bit, into the low bits of a bitboard.
+     *
+     * @param key    The key.
+     * @param offset The index of the first long of the key.
+     * @param start  The first bit of the key to read.
+     * @param bits   The bitboard.
+     * @param count  The number of bits to copy.
+     */
+    private static void readBits(long[] key, int offset, int start, long[] bits, int count) {
+        for (int i = 0; i < count; i += 64) {
+            bits[i >>> 6] = readWord(key, offset, start + i, Math.min(64, count - i));
+        }
+    }
+
+    /**
+     * Reads bits of a key, starting at the given bit, into the low bits of a long.
+     *
+     * @param key    The key.
+     * @param offset The index of the first long of the key.
+     * @param start  The first bit of the key to read.
+     * @param count  The number of bits to read, at most 64.
+     * @return The bits.
+     */
+    private static long readWord(long[] key, int offset, int start, int count) {
+        long word = key[offset + (start >>> 6)] >>> start;
+        if ((start & 63) != 0 && (start >>> 6) + 1 < ((start + count + 63) >>> 6)) {
+            word |= key[offset + (start >>> 6) + 1] << (64 - (start & 63));
+        }
+        if (count < 64) {
+            word &= (1L << count) - 1;
+        }
+        return word;
+    }
+
+    /**
+     * The frogs of one board, changed in place. A move is the index of a jump in the {@link HoppersLayout}; the frog
+     * that landed tells whether a green or the red frog made it, so the move can be taken back.
+     */
+    private static final class State implements MutableState {
+
+        /**
+         * The layout of the board.
+         */
+        private final HoppersLayout board;
+
+        /**
+         * The endgame table the snapshots pass on, null if there is none.
+         */
+        private final HoppersTablebase endgame;
+
+        /**
+         * The green and red frog bitboards.
+         */
+        private final long[] green;
+        private final long[] red;
+
+        /**
+         * Creates the state.
+         *
+         * @param board   The layout of the board.
+         * @param endgame The endgame table, null if there is none.
+         * @param green   The green frog bitboard, which the state takes over.
+         * @param red     The red frog bitboard, which the state takes over.
+         */
+        private State(HoppersLayout board, HoppersTablebase endgame, long[] green, long[] red) {
+            this.board = board;
+            this.endgame = endgame;
+            this.green = green;
+            this.red = red;
+        }
+
+        /**
+         * Gets the most moves a state can have.
+         *
+         * @return The number of jumps on the board.
+         */
+        @Override
+        public int maxMoves() {
+            return board.jumpTo.length;
+        }
+
+        /**
+         * Lists the legal jumps in the same order as {@link HoppersConfig#getNeighbors()}.
+         *
+         * @param moves The array the moves are written to.
+         * @return The number of moves written.
+         */
+        @Override
+        public int moves(int[] moves) {
+            int count = 0;
+            for (int w = 0; w < board.words; ++w) {
+                long frogs = green[w] | red[w];
+                while (frogs != 0) {
+                    int from = (w << 6) + Long.numberOfTrailingZeros(frogs);
+                    frogs &= frogs - 1;
+                    for (int j = board.jumpStart[from]; j < board.jumpStart[from + 1]; ++j) {
+                        int to = board.jumpTo[j];
+                        if (isSet(green, board.jumpOver[j]) && !isSet(green, to) && !isSet(red, to)) {
+                            moves[count++] = j;
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Makes the jump: the frog moves and the green frog it jumps over is taken off.
+         *
+         * @param move The index of the jump.
+         */
+        @Override
+        public void apply(int move) {
+            int from = board.jumpFrom[move];
+            int over = board.jumpOver[move];
+            int to = board.jumpTo[move];
+            long[] mover = isSet(red, from) ? red : green;
+            mover[from >>> 6] &= ~(1L << from);
+            green[over >>> 6] &= ~(1L << over);
+            mover[to >>> 6] |= 1L << to;
+        }
+
+        /**
+         * Takes the jump back: the frog returns and the green frog it jumped over is put back.
+         *
+         * @param move The index of the jump.
+         */
+        @Override
+        public void undo(int move) {
+            int from = board.jumpFrom[move];
+            int over = board.jumpOver[move];
+            int to = board.jumpTo[move];
+            long[] mover = isSet(red, to) ? red : green;
+            mover[to >>> 6] &= ~(1L << to);
+            green[over >>> 6] |= 1L << over;
+            mover[from >>> 6] |= 1L << from;
+        }
+
+        /**
+         * Is the single frog left on the board a red one?
+         *
+         * @return True if yes, otherwise no.
+         */
+        @Override
+        public boolean isSolution() {
+            return HoppersConfig.isSolution(board, green, red);
+        }
+
+        /**
+         * Gets the number of longs in the key, the same as the configurations use.
+         *
+         * @return The width of the key.
+         */
+        @Override
+        public int keyWidth() {
+            return (board.numPads + board.redBits() + 63) >>> 6;
+        }
+
+        /**
+         * Packs the frogs into the key, the same way {@link HoppersConfig#writeKey(long[], int)} does.
+         *
+         * @param key    The array the key is written to.
+         * @param offset The index of the first long of the key.
+         */
+        @Override
+        public void writeKey(long[] key, int offset) {
+            HoppersConfig.writeKey(board, green, red, key, offset);
+        }
+
+        /**
+         * Unpacks the frogs from the key.
+         *
+         * @param key    The array the key is read from.
+         * @param offset The index of the first long of the key.
+         */
+        @Override
+        public void readKey(long[] key, int offset) {
+            HoppersConfig.readKey(board, key, offset, green, red);
+        }
+
+        /**
+         * Makes a configuration with the same frogs.
+         *
+         * @return The configuration.
+         */
+        @Override
+        public Configuration snapshot() {
+            return new HoppersConfig(board, endgame, green.clone(), red.clone());
+        }
+    }
 }
@@ -0,0 +1,75 @@
+package puzzles.hoppers.model;
+
+import java.util.List;
+
+/**
+ * Something that happened to the Hoppers model, sent to its observers. Along with the message for the user, it says
+ * what kind of change it was and which cells of the board it touched, so a view can redraw just those cells.
+ *
+ * @param kind    What kind of change it was.
+ * @param message The message for the user.
+ * @param cells   The cells whose contents changed, as {row, column} pairs. Empty if the board did not change, and
+ *                also empty for loads and resets, where the whole board may have changed.
+ * @author Evan Prizel, emp4506
+ */
+public record HoppersEvent(Kind kind, String message, List<int[]> cells) {
+
+    /**
+     * The kinds of changes.
+     */
+    public enum Kind {
+        /**
+         * A frog was selected, or the selection was not allowed.
+         */
+        SELECT,
+        /**
+         * A frog jumped, or the jump was not allowed.
+         */
+        MOVE,
+        /**
+         * A new board was loaded, or it failed to load.
+         */
+        LOAD,
+        /**
+         * The board went back to its start.
+         */
+        RESET,
+        /**
+         * A hint or solvability check finished. A hint that made a move lists the cells of the jump.
+         */
+        SOLVER,
+        /**
+         * A search in the background is still going.
+         */
+        PROGRESS
+    }
+
+    /**
+     * Creates an event that did not change any cells.
+     *
+     * @param kind    What kind of change it was.
+     * @param message The message for the user.
+     */
+    public HoppersEvent(Kind kind, String message) {
+        this(kind, message, List.of());
+    }
+
+    /**
+     * Might the event have changed the whole board?
+     *
+     * @return True for loads and resets, otherwise false.
+     */
+    public boolean isNewBoard() {
+        return kind == Kind.LOAD || kind == Kind.RESET;
+    }
+
+    /**
+     * Gets the message for the user.
+     *
+     * @return The message.
+     */
+    @Override
+    public String toString() {
+        return message;
+    }
+}
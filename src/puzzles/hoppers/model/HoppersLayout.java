@@ -0,0 +1,456 @@
+package puzzles.hoppers.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * The parts of a Hoppers board that never change while it is being played: the size, which cells are lily pads, and
+ * every jump a frog could ever make, as (from, over, to) pad triples. It is built once when a board is loaded and
+ * shared by every configuration of that board, which only hold which pads have frogs on them.
+ * <p>
+ * The jumps from each pad are stored next to each other, in the order a frog tries them, and a jump is named by its
+ * index. The configurations read the arrays directly; everything else goes through the methods.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public final class HoppersLayout {
+
+    /**
+     * The {rows, columns} of the jumps a frog on an even row and even column tries, in order: up, right, left, down,
+     * down right, down left, up right and up left.
+     */
+    private static final int[][] EVEN_JUMPS = {{-4, 0}, {0, 4}, {0, -4}, {4, 0}, {2, 2}, {2, -2}, {-2, 2}, {-2, -2}};
+
+    /**
+     * The {rows, columns} of the jumps a frog on an odd row and odd column tries, in order: down right, down left,
+     * up right and up left.
+     */
+    private static final int[][] ODD_JUMPS = {{2, 2}, {2, -2}, {-2, 2}, {-2, -2}};
+
+    /**
+     * Water, which a frog can never land on.
+     */
+    private static final char WATER = '*';
+
+    /**
+     * A red frog.
+     */
+    private static final char RED = 'R';
+
+    /**
+     * The seed of the Zobrist numbers. It is fixed so that equal configurations on two loads of the same board
+     * get the same hash.
+     */
+    private static final long ZOBRIST_SEED = 0x5DEECE66DL;
+
+    /**
+     * The size of the grid.
+     */
+    final int numRows;
+    final int numCols;
+
+    /**
+     * The pad index of each cell, -1 for water.
+     */
+    final int[][] padIndex;
+
+    /**
+     * The row and column of each pad.
+     */
+    final int[] padRow;
+    final int[] padCol;
+
+    /**
+     * The number of pads, and the number of longs needed for one bit per pad.
+     */
+    final int numPads;
+    final int words;
+
+    /**
+     * Whether the board was loaded with exactly one red frog. Jumps never add or remove a red frog.
+     */
+    final boolean singleRed;
+
+    /**
+     * The jumps from pad p are jumpOver[i] / jumpTo[i] for jumpStart[p] <= i < jumpStart[p + 1].
+     */
+    final int[] jumpStart;
+    final int[] jumpOver;
+    final int[] jumpTo;
+
+    /**
+     * The pad each jump starts from, so a jump can be named by its index alone.
+     */
+    final int[] jumpFrom;
+
+    /**
+     * The class of each pad as a single bit, or every bit when there are more than 64 classes. Two pads are in the
+     * same class when a frog can get from one to the other, so a frog never leaves its class. On a full board the
+     * classes are the four cosets of the lattice of pads: even or odd cells, split again by the sum of the row and
+     * column modulo 4.
+     */
+    final long[] classBit;
+
+    /**
+     * For each pad, the classes a frog has to be in to jump over some pad of the pad's class, 0 when no jump goes
+     * over any of them.
+     */
+    final long[] jumpedBy;
+
+    /**
+     * The random number of a green and of a red frog on each pad, for the Zobrist hash.
+     */
+    final long[] greenKeys;
+    final long[] redKeys;
+
+    /**
+     * The mirror images and rotations that map the board onto itself, other than doing nothing. Each one gives
+     * the pad every pad is sent to.
+     */
+    final List<int[]> symmetries;
+
+    /**
+     * Numbers the lily pads of the grid and precomputes every jump between them.
+     *
+     * @param cells The grid read from the file.
+     */
+    HoppersLayout(char[][] cells) {
+        numRows = cells.length;
+        numCols = numRows == 0 ? 0 : cells[0].length;
+        padIndex = new int[numRows][numCols];
+        int pads = 0;
+        for (int r = 0; r < numRows; ++r) {
+            for (int c = 0; c < numCols; ++c) {
+                padIndex[r][c] = cells[r][c] == WATER ? -1 : pads++;
+            }
+        }
+        numPads = pads;
+        int reds = 0;
+        for (char[] row : cells) {
+            for (char cell : row) {
+                if (cell == RED) {
+                    ++reds;
+                }
+            }
+        }
+        singleRed = reds == 1;
+        words = Math.max(1, (numPads + 63) >>> 6);
+        padRow = new int[numPads];
+        padCol = new int[numPads];
+        jumpStart = new int[numPads + 1];
+        int[] over = new int[numPads * EVEN_JUMPS.length];
+        int[] to = new int[numPads * EVEN_JUMPS.length];
+        int jumps = 0;
+        for (int r = 0; r < numRows; ++r) {
+            for (int c = 0; c < numCols; ++c) {
+                int pad = padIndex[r][c];
+                if (pad < 0) {
+                    continue;
+                }
+                padRow[pad] = r;
+                padCol[pad] = c;
+                jumpStart[pad] = jumps;
+                int[][] directions = r % 2 == 0 ? (c % 2 == 0 ? EVEN_JUMPS : new int[0][])
+                        : (c % 2 == 1 ? ODD_JUMPS : new int[0][]);
+                for (int[] offset : directions) {
+                    int toR = r + offset[0];
+                    int toC = c + offset[1];
+                    if (toR >= 0 && toR < numRows && toC >= 0 && toC < numCols && padIndex[toR][toC] >= 0
+                            && padIndex[r + offset[0] / 2][c + offset[1] / 2] >= 0) {
+                        over[jumps] = padIndex[r + offset[0] / 2][c + offset[1] / 2];
+                        to[jumps] = padIndex[toR][toC];
+                        ++jumps;
+                    }
+                }
+            }
+        }
+        jumpStart[numPads] = jumps;
+        jumpOver = Arrays.copyOf(over, jumps);
+        jumpTo = Arrays.copyOf(to, jumps);
+        jumpFrom = new int[jumps];
+        for (int pad = 0; pad < numPads; ++pad) {
+            Arrays.fill(jumpFrom, jumpStart[pad], jumpStart[pad + 1], pad);
+        }
+        int[] classOf = findClasses();
+        int classes = 0;
+        for (int pad = 0; pad < numPads; ++pad) {
+            classes = Math.max(classes, classOf[pad] + 1);
+        }
+        classBit = new long[numPads];
+        for (int pad = 0; pad < numPads; ++pad) {
+            classBit[pad] = classes > Long.SIZE ? -1L : 1L << classOf[pad];
+        }
+        long[] classJumpedBy = new long[classes];
+        for (int j = 0; j < jumps; ++j) {
+            classJumpedBy[classOf[jumpOver[j]]] |= classBit[jumpFrom[j]];
+        }
+        jumpedBy = new long[numPads];
+        for (int pad = 0; pad < numPads; ++pad) {
+            jumpedBy[pad] = classJumpedBy[classOf[pad]];
+        }
+        symmetries = findSymmetries();
+        greenKeys = new long[numPads];
+        redKeys = new long[numPads];
+        SplittableRandom random = new SplittableRandom(ZOBRIST_SEED);
+        for (int pad = 0; pad < numPads; ++pad) {
+            greenKeys[pad] = random.nextLong();
+            redKeys[pad] = random.nextLong();
+        }
+    }
+
+    /**
+     * Splits the pads into the classes a frog can move around in, joining the two ends of every jump.
+     *
+     * @return The class of each pad, numbered from 0.
+     */
+    private int[] findClasses() {
+        int[] root = new int[numPads];
+        for (int pad = 0; pad < numPads; ++pad) {
+            root[pad] = pad;
+        }
+        for (int j = 0; j < jumpTo.length; ++j) {
+            root[findRoot(root, jumpFrom[j])] = findRoot(root, jumpTo[j]);
+        }
+        int[] number = new int[numPads];
+        Arrays.fill(number, -1);
+        int classes = 0;
+        int[] classOf = new int[numPads];
+        for (int pad = 0; pad < numPads; ++pad) {
+            int top = findRoot(root, pad);
+            if (number[top] < 0) {
+                number[top] = classes++;
+            }
+            classOf[pad] = number[top];
+        }
+        return classOf;
+    }
+
+    /**
+     * Finds the pad that stands for the class of a pad, shortening the way there as it goes.
+     *
+     * @param root The pad each pad was joined to, itself for the one standing for the class.
+     * @param pad  The pad.
+     * @return The pad standing for its class.
+     */
+    private static int findRoot(int[] root, int pad) {
+        while (root[pad] != pad) {
+            root[pad] = root[root[pad]];
+            pad = root[pad];
+        }
+        return pad;
+    }
+
+    /**
+     * Tries the mirror images and rotations of the grid and keeps the ones that send every pad to a pad and
+     * every jump to a jump.
+     *
+     * @return The symmetries of the board.
+     */
+    private List<int[]> findSymmetries() {
+        Set<Long> jumps = new HashSet<>();
+        for (int pad = 0; pad < numPads; ++pad) {
+            for (int j = jumpStart[pad]; j < jumpStart[pad + 1]; ++j) {
+                jumps.add(jump(pad, jumpOver[j], jumpTo[j]));
+            }
+        }
+        List<int[]> found = new ArrayList<>();
+        int transforms = numRows == numCols ? 8 : 4;
+        for (int transform = 1; transform < transforms; ++transform) {
+            int[] symmetry = new int[numPads];
+            boolean valid = true;
+            for (int pad = 0; pad < numPads && valid; ++pad) {
+                int r = padRow[pad];
+                int c = padCol[pad];
+                int flipR = numRows - 1 - r;
+                int flipC = numCols - 1 - c;
+                int[] image = switch (transform) {
+                    case 1 -> new int[]{r, flipC};
+                    case 2 -> new int[]{flipR, c};
+                    case 3 -> new int[]{flipR, flipC};
+                    case 4 -> new int[]{c, r};
+                    case 5 -> new int[]{flipC, flipR};
+                    case 6 -> new int[]{c, flipR};
+                    default -> new int[]{flipC, r};
+                };
+                symmetry[pad] = padIndex[image[0]][image[1]];
+                valid = symmetry[pad] >= 0;
+            }
+            for (int pad = 0; pad < numPads && valid; ++pad) {
+                for (int j = jumpStart[pad]; j < jumpStart[pad + 1] && valid; ++j) {
+                    valid = jumps.contains(jump(symmetry[pad], symmetry[jumpOver[j]], symmetry[jumpTo[j]]));
+                }
+            }
+            if (valid) {
+                found.add(symmetry);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Packs a jump into one number.
+     *
+     * @param from The pad the frog jumps from.
+     * @param over The pad that is jumped over.
+     * @param to   The pad the frog lands on.
+     * @return The packed jump.
+     */
+    private long jump(int from, int over, int to) {
+        return ((long) from << 42) | ((long) over << 21) | to;
+    }
+
+    /**
+     * Gets the number of key bits used for the red frogs.
+     *
+     * @return The number of bits.
+     */
+    int redBits() {
+        return singleRed ? 32 - Integer.numberOfLeadingZeros(Math.max(1, numPads - 1)) : numPads;
+    }
+
+    /**
+     * Do the two boards have the same size and the same lily pads?
+     *
+     * @param other The other board.
+     * @return True if yes, otherwise no.
+     */
+    boolean sameLayout(HoppersLayout other) {
+        return this == other || (numRows == other.numRows && numCols == other.numCols
+                && Arrays.deepEquals(padIndex, other.padIndex));
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return The number of rows.
+     */
+    public int getNumRows() {
+        return numRows;
+    }
+
+    /**
+     * Gets the number of columns.
+     *
+     * @return The number of columns.
+     */
+    public int getNumCols() {
+        return numCols;
+    }
+
+    /**
+     * Gets the number of lily pads.
+     *
+     * @return The number of pads.
+     */
+    public int getNumPads() {
+        return numPads;
+    }
+
+    /**
+     * Gets the pad at a cell.
+     *
+     * @param r The row.
+     * @param c The column.
+     * @return The pad index, or -1 for water and cells off the board.
+     */
+    public int padAt(int r, int c) {
+        return r < 0 || r >= numRows || c < 0 || c >= numCols ? -1 : padIndex[r][c];
+    }
+
+    /**
+     * Gets the row of a pad.
+     *
+     * @param pad The pad index.
+     * @return The row.
+     */
+    public int padRow(int pad) {
+        return padRow[pad];
+    }
+
+    /**
+     * Gets the column of a pad.
+     *
+     * @param pad The pad index.
+     * @return The column.
+     */
+    public int padCol(int pad) {
+        return padCol[pad];
+    }
+
+    /**
+     * Gets the number of jumps on the board.
+     *
+     * @return The number of jumps.
+     */
+    public int getNumJumps() {
+        return jumpTo.length;
+    }
+
+    /**
+     * Gets the first jump from a pad. The jumps from the pad run up to, not including, the first jump of the next
+     * pad.
+     *
+     * @param pad The pad index, or the number of pads for the end of the last pad's jumps.
+     * @return The index of the first jump.
+     */
+    public int firstJump(int pad) {
+        return jumpStart[pad];
+    }
+
+    /**
+     * Gets the pad a jump starts from.
+     *
+     * @param jump The index of the jump.
+     * @return The pad index.
+     */
+    public int jumpFrom(int jump) {
+        return jumpFrom[jump];
+    }
+
+    /**
+     * Gets the pad a jump goes over.
+     *
+     * @param jump The index of the jump.
+     * @return The pad index.
+     */
+    public int jumpOver(int jump) {
+        return jumpOver[jump];
+    }
+
+    /**
+     * Gets the pad a jump lands on.
+     *
+     * @param jump The index of the jump.
+     * @return The pad index.
+     */
+    public int jumpTo(int jump) {
+        return jumpTo[jump];
+    }
+
+    /**
+     * Finds the jump between two cells.
+     *
+     * @param fromR The row the frog jumps from.
+     * @param fromC The column the frog jumps from.
+     * @param toR   The row the frog lands on.
+     * @param toC   The column the frog lands on.
+     * @return The index of the jump, or -1 if there is no such jump on the board.
+     */
+    public int findJump(int fromR, int fromC, int toR, int toC) {
+        int from = padAt(fromR, fromC);
+        int to = padAt(toR, toC);
+        if (from < 0 || to < 0) {
+            return -1;
+        }
+        for (int j = jumpStart[from]; j < jumpStart[from + 1]; ++j) {
+            if (jumpTo[j] == to) {
+                return j;
+            }
+        }
+        return -1;
+    }
+}
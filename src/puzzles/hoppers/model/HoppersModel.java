@@ -2,16 +2,27 @@ package puzzles.hoppers.model;
 
 import puzzles.common.Observer;
 import puzzles.common.solver.Configuration;
-import puzzles.common.solver.Solver;
+import puzzles.hoppers.solver.DepthFirstSolver;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * This is the Hoppers model that does the logic for the hoppers GUI
+ * <p>
+ * Hints that need a search run on a background thread so the view stays responsive. Any newer request, jump, load
+ * or reset cancels the search that is running, and every method that touches the board holds the model's lock, so
+ * a search that finishes late can never change a board that has moved on.
  *
  * @author Evan Prizel, emp4506
  */
@@ -19,13 +30,99 @@ public class HoppersModel {
     /**
      * the collection of observers of this model
      */
-    private final List<Observer<HoppersModel, String>> observers = new LinkedList<>();
+    private final List<Observer<HoppersModel, HoppersEvent>> observers = new LinkedList<>();
 
     /**
      * the current configuration
      */
     private HoppersConfig currentConfig;
 
+    /**
+     * The most positions the hint cache remembers.
+     */
+    private final static int CACHE_SIZE = 1 << 16;
+
+    /**
+     * The most failed positions the solver remembers between hints.
+     */
+    private final static int FAILED_LIMIT = 1 << 22;
+
+    /**
+     * What the solver found out about a position.
+     *
+     * @param solvable Whether there is still a solution.
+     * @param next     The position after the next move of a solution, null when already solved or not solvable.
+     */
+    private record Hint(boolean solvable, HoppersConfig next) {
+    }
+
+    /**
+     * The positions that have been solved before, most recently used last.
+     */
+    private final Map<HoppersConfig, Hint> hints = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<HoppersConfig, Hint> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * The last solution found, and how far along it the board is.
+     */
+    private List<HoppersConfig> solutionLine;
+    private int cursor;
+
+    /**
+     * The solver used for hints, which remembers the positions that lead nowhere for as long as the board is the
+     * same.
+     */
+    private DepthFirstSolver solver;
+
+    /**
+     * The thread hint searches run on.
+     */
+    private final ExecutorService searcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hoppers-hint");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The hint search that is running, null if there is none.
+     */
+    private Future<?> pending;
+
+    /**
+     * Counts the changes to the board, so a search can tell if the board moved on while it was running.
+     */
+    private int generation;
+
+    /**
+     * The most positions a solvability map is built for.
+     */
+    private final static int MAP_LIMIT = 1 << 23;
+
+    /**
+     * Whether each position reachable from the loaded board can still be solved, null until it is built.
+     */
+    private volatile SolvabilityMap solvability;
+
+    /**
+     * The background thread building the solvability map.
+     */
+    private Thread mapBuilder;
+
+    /**
+     * The most frogs the endgame table is built for, 0 for no table.
+     */
+    private final int endgameFrogs;
+
+    /**
+     * The endgame table of the current board, null until it is loaded or when there is none. It is loaded on the
+     * same thread as the solvability map, before the map.
+     */
+    private volatile HoppersTablebase endgame;
+
     /**
      * selection[0] = the row of the users selection
      * selection[1] = the column of the users selection
@@ -39,10 +136,24 @@ public class HoppersModel {
      * @throws IOException Needed for compiling.
      */
     public HoppersModel(String filename) throws IOException {
+        this(filename, 0);
+    }
+
+    /**
+     * Creates the model with an endgame table that answers hints once few enough frogs are left.
+     *
+     * @param filename     The current name for the file of the model.
+     * @param endgameFrogs The most frogs the endgame table is built for, 0 for no table.
+     * @throws IOException Needed for compiling.
+     */
+    public HoppersModel(String filename, int endgameFrogs) throws IOException {
+        this.endgameFrogs = endgameFrogs;
         currentConfig = new HoppersConfig(filename);
+        solver = newSolver();
         selection = new int[2];
         selection[0] = -100;
         selection[1] = -100;
+        buildSolvabilityMap();
     }
 
     /**
@@ -50,54 +161,174 @@ public class HoppersModel {
      *
      * @param observer the view
      */
-    public void addObserver(Observer<HoppersModel, String> observer) {
+    public synchronized void addObserver(Observer<HoppersModel, HoppersEvent> observer) {
         this.observers.add(observer);
     }
 
     /**
      * The model's state has changed (the counter), so inform the view via
      * the update method
+     *
+     * @param event What changed.
      */
-    private void alertObservers(String msg) {
+    private void alertObservers(HoppersEvent event) {
         for (var observer : observers) {
-            observer.update(this, msg);
+            observer.update(this, event);
+        }
+    }
+
+    /**
+     * Tells the observers about something that did not change any cells.
+     *
+     * @param kind What kind of change it was.
+     * @param msg  The message for the user.
+     */
+    private void alertObservers(HoppersEvent.Kind kind, String msg) {
+        alertObservers(new HoppersEvent(kind, msg));
+    }
+
+    /**
+     * Finds the cells that are different between two positions on the same board.
+     *
+     * @param before The first position.
+     * @param after  The second position.
+     * @return The cells that changed, as {row, column} pairs.
+     */
+    private static List<int[]> changedCells(HoppersConfig before, HoppersConfig after) {
+        List<int[]> cells = new ArrayList<>();
+        char[][] was = before.getGrid();
+        char[][] now = after.getGrid();
+        for (int r = 0; r < now.length; ++r) {
+            for (int c = 0; c < now[r].length; ++c) {
+                if (was[r][c] != now[r][c]) {
+                    cells.add(new int[]{r, c});
+                }
+            }
         }
+        return cells;
     }
 
     /**
      * Gives the user a hint using the solver and the second output that is in the path.
      * If there is no solution, notify the user that there is no solution.
+     *
+     * @return The search for the hint, which is already done when the answer was known.
      */
-    public void hint() {
-        Solver solver = new Solver();
-        Collection<Configuration> path = solver.solve(currentConfig, null);
-        HoppersConfig hintConfig;
-        boolean solved = false;
-        int i = 0;
-        if (!path.isEmpty()) {
-            if (path.size() == 1) {
+    public synchronized Future<?> hint() {
+        return request(hint -> {
+            if (!hint.solvable()) {
+                System.out.println("There is no solution :(");
+                alertObservers(HoppersEvent.Kind.SOLVER, "There is no solution :(");
+            } else if (hint.next() == null) {
                 System.out.println("Already solved!");
-                solved = true;
+                alertObservers(HoppersEvent.Kind.SOLVER, "Already solved!");
             } else {
-                for (Configuration config : path) {
-                    if (i == 1) {
-                        hintConfig = (HoppersConfig) config;
-                        this.currentConfig = hintConfig;
-                        break;
+                List<int[]> cells = changedCells(currentConfig, hint.next());
+                this.currentConfig = hint.next();
+                System.out.println("Next step!");
+                alertObservers(new HoppersEvent(HoppersEvent.Kind.SOLVER, "Next step!", cells));
+            }
+        });
+    }
+
+    /**
+     * Cancels the running search and answers a new request about the current position. The answer is given right
+     * away when it is already known, otherwise a search is started in the background and the answer is given, while
+     * holding the model's lock, when it finishes. The search reports its progress to the observers.
+     *
+     * @param answer What to do with the answer.
+     * @return The search, which is already done when the answer was known.
+     */
+    private Future<?> request(Consumer<Hint> answer) {
+        cancelSearch();
+        Hint known = knownHint();
+        if (known != null) {
+            answer.accept(known);
+            return CompletableFuture.completedFuture(null);
+        }
+        int request = generation;
+        HoppersConfig start = currentConfig.withEndgame(endgame);
+        DepthFirstSolver boardSolver = solver;
+        pending = searcher.submit(() -> {
+            boardSolver.setProgress(searched -> {
+                synchronized (this) {
+                    if (request == generation) {
+                        alertObservers(HoppersEvent.Kind.PROGRESS, "Searching... " + searched + " positions");
                     }
-                    ++i;
                 }
-                System.out.println("Next step!");
+            });
+            List<HoppersConfig> path = new ArrayList<>();
+            for (Configuration config : boardSolver.solve(start, null)) {
+                path.add((HoppersConfig) config);
             }
-            if (solved) {
-                alertObservers("Already solved!");
-            } else {
-                alertObservers("Next step!");
+            synchronized (this) {
+                if (boardSolver == solver) {
+                    remember(start, path);
+                }
+                if (request == generation) {
+                    pending = null;
+                    answer.accept(hints.get(start));
+                }
             }
-        } else {
-            System.out.println("There is no solution :(");
-            alertObservers("There is no solution :(");
+        });
+        return pending;
+    }
+
+    /**
+     * Cancels the hint search that is running, if there is one, and marks the board as changed.
+     */
+    private void cancelSearch() {
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+        ++generation;
+    }
+
+    /**
+     * Finds the next move from the current position without searching. Following the last solution found takes
+     * constant time, a position the invariants prove dead needs one pass over the frogs, a position with few enough
+     * frogs is looked up in the endgame table, and any position that was on an earlier solution, or was found to
+     * have none, comes from the cache.
+     *
+     * @return What is known about the current position, null if it needs a search.
+     */
+    private Hint knownHint() {
+        if (solutionLine != null && cursor + 1 < solutionLine.size()
+                && solutionLine.get(cursor + 1).equals(currentConfig)) {
+            ++cursor;
+        }
+        if (solutionLine != null && cursor < solutionLine.size() && solutionLine.get(cursor).equals(currentConfig)) {
+            return new Hint(true, cursor + 1 < solutionLine.size() ? solutionLine.get(cursor + 1) : null);
+        }
+        if (currentConfig.deadEnd() != null) {
+            return new Hint(false, null);
         }
+        HoppersTablebase table = endgame;
+        if (table != null && table.covers(currentConfig)) {
+            int jump = table.bestJump(currentConfig);
+            return new Hint(table.isSolvable(currentConfig), jump >= 0 ? currentConfig.jump(jump) : null);
+        }
+        return hints.get(currentConfig);
+    }
+
+    /**
+     * Remembers what a search found out about a position. Every position on the solution is remembered along with
+     * its next move, and the solution becomes the line the cursor follows.
+     *
+     * @param start The position that was searched.
+     * @param path  The solution from the position, empty if there is none.
+     */
+    private void remember(HoppersConfig start, List<HoppersConfig> path) {
+        if (path.isEmpty()) {
+            hints.put(start, new Hint(false, null));
+            return;
+        }
+        for (int i = 0; i < path.size(); ++i) {
+            hints.put(path.get(i), new Hint(true, i + 1 < path.size() ? path.get(i + 1) : null));
+        }
+        solutionLine = path;
+        cursor = 0;
     }
 
     /**
@@ -106,33 +337,50 @@ public class HoppersModel {
      *
      * @param filename The file name.
      */
-    public void load(String filename) {
+    public synchronized void load(String filename) {
         try {
             this.currentConfig = new HoppersConfig(filename);
+            cancelSearch();
+            forgetSolutions();
             selection[0] = -100;
             selection[1] = -100;
             filename = filename.substring(filename.lastIndexOf(File.separator) + 1);
             System.out.println("Loaded: " + filename);
-            alertObservers("Loaded: " + filename);
+            alertObservers(HoppersEvent.Kind.LOAD, "Loaded: " + filename);
         } catch (IOException e) {
             System.out.println("Failed to load: " + filename);
-            alertObservers("Failed to load: " + filename);
+            alertObservers(HoppersEvent.Kind.LOAD, "Failed to load: " + filename);
         }
     }
 
     /**
      * CUSTOM
      * Checks if there is a solution still available and notifies the user based on that answer.
+     *
+     * @return The search for the answer, which is already done when the answer was known.
      */
-    public void isSolutionLeft() {
-        Solver solver = new Solver();
-        Collection<Configuration> path = solver.solve(currentConfig, null);
-        if (path.isEmpty()) {
+    public synchronized Future<?> isSolutionLeft() {
+        SolvabilityMap map = solvability;
+        if (map != null && map.contains(currentConfig)) {
+            cancelSearch();
+            reportSolvable(map.isSolvable(currentConfig));
+            return CompletableFuture.completedFuture(null);
+        }
+        return request(hint -> reportSolvable(hint.solvable()));
+    }
+
+    /**
+     * Tells the user whether there is a solution left.
+     *
+     * @param solvable Whether there is a solution left.
+     */
+    private void reportSolvable(boolean solvable) {
+        if (!solvable) {
             System.out.println("There is no solution :(");
-            alertObservers("There is no solution :(");
+            alertObservers(HoppersEvent.Kind.SOLVER, "There is no solution :(");
         } else {
             System.out.println("There is a solution left!");
-            alertObservers("There is a solution left!");
+            alertObservers(HoppersEvent.Kind.SOLVER, "There is a solution left!");
         }
     }
 
@@ -144,65 +392,160 @@ public class HoppersModel {
      * @param r The row of the selection.
      * @param c The column of the selection.
      */
-    public void select(int r, int c) {
+    public synchronized void select(int r, int c) {
         if (selection[0] == -100 && selection[1] == -100) {
             char[][] theGrid = currentConfig.getGrid();
             if (r >= 0 && c >= 0 && (theGrid[r][c] == 'G' || theGrid[r][c] == 'R')) {
                 selection[0] = r;
                 selection[1] = c;
                 System.out.println("Selected (" + r + ", " + c + ")");
-                alertObservers("Selected (" + r + ", " + c + ")");
+                alertObservers(HoppersEvent.Kind.SELECT, "Selected (" + r + ", " + c + ")");
             } else {
                 System.out.println("Invalid selection (" + r + ", " + c + ")");
-                alertObservers("Invalid selection (" + r + ", " + c + ")");
+                alertObservers(HoppersEvent.Kind.SELECT, "Invalid selection (" + r + ", " + c + ")");
             }
         } else {
-            int moveR = r - selection[0];
-            int moveC = c - selection[1];
-            String change = null;
-            boolean fail = false;
-            if (moveR == -4 && moveC == 0) {
-                change = "UP";
-            } else if (moveR == 4 && moveC == 0) {
-                change = "DOWN";
-            } else if (moveR == 0 && moveC == 4) {
-                change = "RIGHT";
-            } else if (moveR == 0 && moveC == -4) {
-                change = "LEFT";
-            } else if (moveR == -2 && moveC == -2) {
-                change = "UPLEFT";
-            } else if (moveR == 2 && moveC == -2) {
-                change = "DOWNLEFT";
-            } else if (moveR == -2 && moveC == 2) {
-                change = "UPRIGHT";
-            } else if (moveR == 2 && moveC == 2) {
-                change = "DOWNRIGHT";
-            } else {
-                fail = true;
-            }
-            if (!fail && currentConfig.contains(change, selection[0], selection[1])) {
-                char[][] theGrid = currentConfig.getGrid();
-                this.currentConfig = new HoppersConfig(currentConfig.getNumRows(), currentConfig.getNumCols(), theGrid,
-                        change, theGrid[selection[0]][selection[1]], selection[0], selection[1]);
+            int jump = currentConfig.getLayout().findJump(selection[0], selection[1], r, c);
+            if (jump >= 0 && currentConfig.canJump(jump)) {
+                cancelSearch();
+                this.currentConfig = currentConfig.jump(jump);
+                List<int[]> cells = List.of(new int[]{selection[0], selection[1]},
+                        new int[]{(selection[0] + r) / 2, (selection[1] + c) / 2}, new int[]{r, c});
                 System.out.println("Jumped from (" + selection[0] + ", " + selection[1] + ")  to (" + r + ", " + c + ")");
-                alertObservers("Jumped from (" + selection[0] + ", " + selection[1] + ")  to (" + r + ", " + c + ")");
+                alertObservers(new HoppersEvent(HoppersEvent.Kind.MOVE,
+                        "Jumped from (" + selection[0] + ", " + selection[1] + ")  to (" + r + ", " + c + ")", cells));
                 selection[0] = -100;
                 selection[1] = -100;
             } else {
                 System.out.println("Can't jump from (" + selection[0] + ", " + selection[1] + ")  to (" + r + ", " + c + ")");
-                alertObservers("Can't jump from (" + selection[0] + ", " + selection[1] + ")  to (" + r + ", " + c + ")");
+                alertObservers(HoppersEvent.Kind.MOVE,
+                        "Can't jump from (" + selection[0] + ", " + selection[1] + ")  to (" + r + ", " + c + ")");
                 selection[0] = -100;
                 selection[1] = -100;
             }
         }
     }
 
+    /**
+     * Gets the cells the selected frog can jump to without losing the last solution. This is only known once the
+     * solvability map of the board has been built, until then (and when no frog is selected) the list is empty.
+     *
+     * @return The list of {row, column} cells.
+     */
+    public synchronized List<int[]> getSolvableTargets() {
+        List<int[]> targets = new ArrayList<>();
+        SolvabilityMap map = solvability;
+        if (map == null || selection[0] == -100 || !map.contains(currentConfig)) {
+            return targets;
+        }
+        HoppersLayout layout = currentConfig.getLayout();
+        int pad = layout.padAt(selection[0], selection[1]);
+        for (int jump = layout.firstJump(pad); jump < layout.firstJump(pad + 1); ++jump) {
+            if (currentConfig.canJump(jump) && map.isSolvable(currentConfig.jump(jump))) {
+                int to = layout.jumpTo(jump);
+                targets.add(new int[]{layout.padRow(to), layout.padCol(to)});
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Starts building the solvability map of the current board in the background, unless the map already
+     * belongs to it. Any map still being built for an older board is abandoned.
+     */
+    private synchronized void buildSolvabilityMap() {
+        SolvabilityMap map = solvability;
+        if (map != null && map.getStart().equals(currentConfig)) {
+            return;
+        }
+        solvability = null;
+        endgame = null;
+        if (mapBuilder != null) {
+            mapBuilder.interrupt();
+        }
+        HoppersConfig start = currentConfig;
+        mapBuilder = new Thread(() -> {
+            HoppersTablebase table = loadEndgame(start);
+            synchronized (this) {
+                if (mapBuilder == Thread.currentThread()) {
+                    endgame = table;
+                }
+            }
+            SolvabilityMap built = SolvabilityMap.build(start, MAP_LIMIT);
+            synchronized (this) {
+                if (mapBuilder == Thread.currentThread()) {
+                    solvability = built;
+                    mapBuilder = null;
+                }
+            }
+        }, "solvability-map");
+        mapBuilder.setDaemon(true);
+        mapBuilder.start();
+    }
+
+    /**
+     * Waits until the solvability map of the current board is built, or has been given up on because the board is
+     * too big, so the answers after this don't depend on how far the background thread got.
+     *
+     * @throws InterruptedException Thrown if the wait is interrupted.
+     */
+    public void awaitSolvabilityMap() throws InterruptedException {
+        Thread builder;
+        synchronized (this) {
+            builder = mapBuilder;
+        }
+        if (builder != null) {
+            builder.join();
+        }
+    }
+
+    /**
+     * Creates the solver for hints, which remembers failed positions between hints and skips the positions the
+     * invariants prove dead.
+     *
+     * @return The solver.
+     */
+    private static DepthFirstSolver newSolver() {
+        DepthFirstSolver solver = new DepthFirstSolver(FAILED_LIMIT);
+        solver.setPruning(true);
+        return solver;
+    }
+
+    /**
+     * Loads, or builds, the endgame table of a board.
+     *
+     * @param start A position on the board.
+     * @return The table, or null if none was asked for, the board can't have one, or it couldn't be loaded.
+     */
+    private HoppersTablebase loadEndgame(HoppersConfig start) {
+        if (endgameFrogs <= 0) {
+            return null;
+        }
+        try {
+            return HoppersTablebase.load(start, endgameFrogs, HoppersTablebase.DEFAULT_DIRECTORY);
+        } catch (IOException e) {
+            System.out.println("Failed to load the endgame table: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Forgets everything learned about the old board when a board is (re)loaded from a file.
+     */
+    private void forgetSolutions() {
+        hints.clear();
+        solutionLine = null;
+        cursor = 0;
+        solver = newSolver();
+        buildSolvabilityMap();
+    }
+
     /**
      * Gets the number of rows of the configuration.
      *
      * @return The number of rows.
      */
-    public int getRows() {
+    public synchronized int getRows() {
         return currentConfig.getNumRows();
     }
 
@@ -211,7 +554,7 @@ public class HoppersModel {
      *
      * @return The number of columns.
      */
-    public int getCols() {
+    public synchronized int getCols() {
         return currentConfig.getNumCols();
     }
 
@@ -220,7 +563,7 @@ public class HoppersModel {
      *
      * @return The grid.
      */
-    public char[][] getGrid() {
+    public synchronized char[][] getGrid() {
         return currentConfig.getGrid();
     }
 
@@ -229,16 +572,18 @@ public class HoppersModel {
      *
      * @param filename The file name of the current board.
      */
-    public void reset(String filename) {
+    public synchronized void reset(String filename) {
         try {
             this.currentConfig = new HoppersConfig(filename);
+            cancelSearch();
+            forgetSolutions();
             selection[0] = -100;
             selection[1] = -100;
             System.out.println("Puzzle Reset!");
         } catch (IOException e) {
             e.printStackTrace();
         } finally {
-            alertObservers("Puzzle Reset!");
+            alertObservers(HoppersEvent.Kind.RESET, "Puzzle Reset!");
         }
     }
 
@@ -248,7 +593,7 @@ public class HoppersModel {
      * @return The string representation of the current configuration
      */
     @Override
-    public String toString() {
+    public synchronized String toString() {
         String str1 = "";
         String str2;
         String result = "   ";
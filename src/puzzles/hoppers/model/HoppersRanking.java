@@ -0,0 +1,235 @@
+package puzzles.hoppers.model;
+
+import java.util.Arrays;
+
+/**
+ * Numbers every position of a board with one red frog, without gaps, using the combinatorial number system. A
+ * position is the red frog's pad plus the set of pads with green frogs on them. Every jump takes one green frog off,
+ * so the positions are grouped into layers by how many green frogs are left, fewest first:
+ * <pre>
+ *     rank = layerStart[greens] + redPad * C(pads - 1, greens) + sum over the i-th green pad p of C(p', i + 1)
+ * </pre>
+ * where p' is the pad's number with the red pad left out. Every neighbor of a position is in the layer below it, so
+ * its rank is smaller, and walking the ranks from the top down visits a BFS level at a time.
+ * <p>
+ * With a rank, the positions seen or the positions that can be solved fit in a bitmap with one bit per position.
+ * That only pays off when a good share of all the positions can be reached, which is the case on the small boards;
+ * on big boards the reachable positions are a tiny fraction and a {@link puzzles.common.solver.KeyTable} is smaller.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public class HoppersRanking {
+
+    /**
+     * The most positions a ranking is made for when they are going to be kept in bitmaps, 32 MB per bitmap.
+     */
+    public final static long BITMAP_LIMIT = 1L << 28;
+
+    /**
+     * The configuration the ranking was made from, used to make configurations on the same board.
+     */
+    private final HoppersConfig start;
+
+    /**
+     * The number of pads.
+     */
+    private final int numPads;
+
+    /**
+     * binomials[n][k] is n choose k, for k up to one more than the most green frogs.
+     */
+    private final long[][] binomials;
+
+    /**
+     * The first rank of each layer, with one extra entry for the end of the last one.
+     */
+    private final long[] layerStart;
+
+    /**
+     * Creates the ranking once its tables have been filled in.
+     *
+     * @param start      The configuration the ranking was made from.
+     * @param binomials  The table of binomial coefficients.
+     * @param layerStart The first rank of each layer.
+     */
+    private HoppersRanking(HoppersConfig start, long[][] binomials, long[] layerStart) {
+        this.start = start;
+        this.numPads = start.getNumPads();
+        this.binomials = binomials;
+        this.layerStart = layerStart;
+    }
+
+    /**
+     * Creates the ranking of every position with at most as many green frogs as the start.
+     *
+     * @param start The starting position.
+     * @param limit The most positions the ranking may have.
+     * @return The ranking, or null if the board doesn't have exactly one red frog or has more than limit positions.
+     */
+    public static HoppersRanking create(HoppersConfig start, long limit) {
+        int maxGreens = 0;
+        for (long word : start.greenBits()) {
+            maxGreens += Long.bitCount(word);
+        }
+        return create(start, maxGreens, limit);
+    }
+
+    /**
+     * Creates the ranking of every position on the start's board with at most the given number of green frogs.
+     *
+     * @param start     A position on the board.
+     * @param maxGreens The most green frogs a position may have.
+     * @param limit     The most positions the ranking may have.
+     * @return The ranking, or null if the board doesn't have exactly one red frog or has more than limit positions.
+     */
+    public static HoppersRanking create(HoppersConfig start, int maxGreens, long limit) {
+        if (!start.hasSingleRed()) {
+            return null;
+        }
+        int pads = start.getNumPads();
+        long[][] binomials = new long[pads + 1][maxGreens + 2];
+        for (int n = 0; n <= pads; ++n) {
+            binomials[n][0] = 1;
+            for (int k = 1; k <= Math.min(n, maxGreens + 1); ++k) {
+                binomials[n][k] = Math.min(limit + 1, binomials[n - 1][k - 1] + binomials[n - 1][k]);
+            }
+        }
+        long[] layerStart = new long[maxGreens + 2];
+        for (int greens = 0; greens <= maxGreens; ++greens) {
+            long layer = pads * binomials[pads - 1][greens];
+            if (binomials[pads - 1][greens] > limit || layer > limit || layerStart[greens] + layer > limit) {
+                return null;
+            }
+            layerStart[greens + 1] = layerStart[greens] + layer;
+        }
+        return new HoppersRanking(start, binomials, layerStart);
+    }
+
+    /**
+     * Gets the number of positions.
+     *
+     * @return One more than the biggest rank.
+     */
+    public long size() {
+        return layerStart[layerStart.length - 1];
+    }
+
+    /**
+     * Gets the most green frogs a position of the ranking can have.
+     *
+     * @return The number of green frogs.
+     */
+    public int getMaxGreens() {
+        return layerStart.length - 2;
+    }
+
+    /**
+     * Gets the first rank of the positions with the given number of green frogs.
+     *
+     * @param greens The number of green frogs, up to one more than {@link #getMaxGreens()} for the end.
+     * @return The first rank of the layer.
+     */
+    public long layerStart(int greens) {
+        return layerStart[greens];
+    }
+
+    /**
+     * Can the position be ranked? It has to be on the same board, with one red frog and no more green frogs than
+     * {@link #getMaxGreens()}.
+     *
+     * @param config The position.
+     * @return True if yes, otherwise no.
+     */
+    public boolean contains(HoppersConfig config) {
+        if (!config.sameBoard(start)) {
+            return false;
+        }
+        int greens = 0;
+        int reds = 0;
+        for (int w = 0; w < config.greenBits().length; ++w) {
+            greens += Long.bitCount(config.greenBits()[w]);
+            reds += Long.bitCount(config.redBits()[w]);
+        }
+        return reds == 1 && greens <= getMaxGreens();
+    }
+
+    /**
+     * Gets the number of a position, which must be one the ranking {@link #contains(HoppersConfig)}.
+     *
+     * @param config The position.
+     * @return The rank.
+     */
+    public long rank(HoppersConfig config) {
+        return rank(config.greenBits(), config.redBits());
+    }
+
+    /**
+     * Gets the number of a position given as bitboards.
+     *
+     * @param green The green frog bitboard.
+     * @param red   The red frog bitboard, with exactly one frog.
+     * @return The rank.
+     */
+    long rank(long[] green, long[] red) {
+        int redPad = 0;
+        for (int w = 0; w < red.length; ++w) {
+            if (red[w] != 0) {
+                redPad = (w << 6) + Long.numberOfTrailingZeros(red[w]);
+            }
+        }
+        long subset = 0;
+        int greens = 0;
+        for (int w = 0; w < green.length; ++w) {
+            for (long frogs = green[w]; frogs != 0; frogs &= frogs - 1) {
+                int pad = (w << 6) + Long.numberOfTrailingZeros(frogs);
+                ++greens;
+                subset += binomials[pad > redPad ? pad - 1 : pad][greens];
+            }
+        }
+        return layerStart[greens] + redPad * binomials[numPads - 1][greens] + subset;
+    }
+
+    /**
+     * Rebuilds the position with the given number.
+     *
+     * @param rank The rank, from 0 to {@link #size()} - 1.
+     * @return The position.
+     */
+    public HoppersConfig unrank(long rank) {
+        int words = start.greenBits().length;
+        long[] green = new long[words];
+        long[] red = new long[words];
+        unrank(rank, green, red);
+        return start.withFrogs(green, red);
+    }
+
+    /**
+     * Rebuilds the bitboards of the position with the given number.
+     *
+     * @param rank  The rank, from 0 to {@link #size()} - 1.
+     * @param green Filled in with the green frog bitboard.
+     * @param red   Filled in with the red frog bitboard.
+     */
+    void unrank(long rank, long[] green, long[] red) {
+        int greens = 0;
+        while (layerStart[greens + 1] <= rank) {
+            ++greens;
+        }
+        long rest = rank - layerStart[greens];
+        long subsets = binomials[numPads - 1][greens];
+        int redPad = (int) (rest / subsets);
+        long subset = rest % subsets;
+        Arrays.fill(green, 0);
+        Arrays.fill(red, 0);
+        red[redPad >>> 6] |= 1L << redPad;
+        int pad = numPads - 1;
+        for (int i = greens; i > 0; --i) {
+            do {
+                --pad;
+            } while (binomials[pad][i] > subset);
+            subset -= binomials[pad][i];
+            int real = pad >= redPad ? pad + 1 : pad;
+            green[real >>> 6] |= 1L << real;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package puzzles.hoppers.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An endgame table for one board layout: for every position with at most a given number of frogs, one of them red,
+ * whether it can be solved and a jump that keeps it solvable. Every jump takes one green frog off, so every solution
+ * from a position is equally long and any such jump is a best one.
+ * <p>
+ * The positions are numbered by a {@link HoppersRanking}, fewest green frogs first, so the table is built a layer at a
+ * time from the lone red frog up: a position can be solved when one of its jumps lands on a position the layer
+ * below already knows can be solved. The jumps are tried in the order {@link HoppersConfig#getNeighbors()} makes
+ * them, so the table picks the same move a depth first search would.
+ * <p>
+ * Each position takes one char in a memory mapped file: 0 when it can't be solved, 1 when it is solved, and the
+ * jump's index plus 2 otherwise. Only the layout goes into the table, not where the frogs start, so every board with
+ * the same water shares the file. The file is kept in a directory and named after the layout and the number of
+ * frogs, so it is built once and then mapped straight in on every later run. Its header holds every cell of the
+ * layout, so a file of another layout that ends up with the same name is built again instead of used. A table is
+ * built in a file of its own and then renamed over the old one, so a process that still has the old one mapped
+ * keeps reading a whole file.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public class HoppersTablebase {
+
+    /**
+     * The first int of a finished table file, "HOPT". It is written last, so a file left half built is never used.
+     */
+    private final static int MAGIC = 0x484F5054;
+
+    /**
+     * The ints at the start of the header before the cells: the magic number and the rows, columns, pads, jumps and
+     * frogs of the table.
+     */
+    private final static int HEADER_INTS = 6;
+
+    /**
+     * The switch the programs take the number of frogs of the table from, as --endgame=K.
+     */
+    public final static String SWITCH = "--endgame=";
+
+    /**
+     * Where the table files are kept unless told otherwise.
+     */
+    public final static Path DEFAULT_DIRECTORY = Path.of(System.getProperty("java.io.tmpdir"), "hoppers-endgame");
+
+    /**
+     * The entry of a position that can't be solved.
+     */
+    private final static char UNSOLVABLE = 0;
+
+    /**
+     * The entry of a position that is already solved.
+     */
+    private final static char SOLVED = 1;
+
+    /**
+     * The layout the table is for.
+     */
+    private final HoppersLayout layout;
+
+    /**
+     * The numbering of the positions in the table.
+     */
+    private final HoppersRanking ranking;
+
+    /**
+     * The most frogs a position in the table has.
+     */
+    private final int frogs;
+
+    /**
+     * The byte the entries start at, right after the header.
+     */
+    private final int entries;
+
+    /**
+     * The mapped file, header included.
+     */
+    private final ByteBuffer table;
+
+    /**
+     * Creates the table over a mapped file.
+     *
+     * @param layout  The layout the table is for.
+     * @param ranking The numbering of the positions.
+     * @param frogs   The most frogs a position has.
+     * @param entries The byte the entries start at.
+     * @param table   The mapped file.
+     */
+    private HoppersTablebase(HoppersLayout layout, HoppersRanking ranking, int frogs, int entries, ByteBuffer table) {
+        this.layout = layout;
+        this.ranking = ranking;
+        this.frogs = frogs;
+        this.entries = entries;
+        this.table = table;
+    }
+
+    /**
+     * Maps in the table of the board's layout from the directory, building it there first if it isn't there yet.
+     * Building can take a while for a lot of frogs, so the thread building it gives up when it is interrupted.
+     *
+     * @param start     A position on the board.
+     * @param frogs     The most frogs a position in the table has, red one included.
+     * @param directory The directory the table files are kept in.
+     * @return The table, or null if the board doesn't have exactly one red frog, the table wouldn't fit in one mapped
+     * buffer, or the thread was interrupted.
+     * @throws IOException Thrown if the file can't be read or written.
+     */
+    public static HoppersTablebase load(HoppersConfig start, int frogs, Path directory) throws IOException {
+        if (frogs < 1) {
+            throw new IllegalArgumentException("an endgame table needs at least one frog");
+        }
+        HoppersLayout layout = start.getLayout();
+        int[] header = header(layout, frogs);
+        int entries = 4 * header.length;
+        HoppersRanking ranking = HoppersRanking.create(start, frogs - 1, (Integer.MAX_VALUE - entries) / 2);
+        if (ranking == null || layout.getNumJumps() + 2 > Character.MAX_VALUE) {
+            return null;
+        }
+        long bytes = entries + 2 * ranking.size();
+        Path file = directory.resolve(fileName(header));
+        if (Files.exists(file) && Files.size(file) == bytes) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+                boolean same = true;
+                for (int i = 0; i < header.length; ++i) {
+                    same &= table.getInt(4 * i) == header[i];
+                }
+                if (same) {
+                    return new HoppersTablebase(layout, ranking, frogs, entries, table);
+                }
+            }
+        }
+        Files.createDirectories(directory);
+        // no other process or thread builds into the same file
+        Path building = directory.resolve(file.getFileName() + "." + ProcessHandle.current().pid() + "."
+                + Thread.currentThread().getId() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(building, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+                HoppersTablebase tablebase = new HoppersTablebase(layout, ranking, frogs, entries, table);
+                if (!tablebase.fill()) {
+                    return null;
+                }
+                for (int i = 1; i < header.length; ++i) {
+                    table.putInt(4 * i, header[i]);
+                }
+                table.force();
+                table.putInt(0, header[0]);
+                table.force();
+                Files.move(building, file, StandardCopyOption.ATOMIC_MOVE);
+                return tablebase;
+            }
+        } finally {
+            Files.deleteIfExists(building);
+        }
+    }
+
+    /**
+     * Finds the number of frogs the table should be built for in the command arguments.
+     *
+     * @param args The command arguments.
+     * @return The K of the last --endgame=K, 0 if there is none.
+     * @throws NumberFormatException Thrown if K isn't a number.
+     */
+    public static int frogsFromArgs(List<String> args) {
+        int frogs = 0;
+        for (String arg : args) {
+            if (arg.startsWith(SWITCH)) {
+                frogs = Integer.parseInt(arg.substring(SWITCH.length()));
+            }
+        }
+        return frogs;
+    }
+
+    /**
+     * Gets the name of the file a table is kept in, from the size of its board, a 64-bit hash of its cells and its
+     * number of frogs.
+     *
+     * @param header The header of the table.
+     * @return The file name.
+     */
+    private static String fileName(int[] header) {
+        long hash = 0;
+        for (int i = HEADER_INTS; i < header.length; ++i) {
+            hash = (hash ^ (header[i] & 0xFFFFFFFFL)) * 0x100000001B3L;
+        }
+        return String.format("hoppers-%dx%d-%016x-%d.endgame", header[1], header[2], hash, header[5]);
+    }
+
+    /**
+     * Gets the ints a table file starts with: the magic number, the rows, columns, pads, jumps and frogs of the
+     * table, and then one bit per cell, in row order, set for the lily pads.
+     *
+     * @param layout The layout.
+     * @param frogs  The most frogs a position in the table has.
+     * @return The header, magic number first.
+     */
+    private static int[] header(HoppersLayout layout, int frogs) {
+        int cols = layout.getNumCols();
+        int cells = layout.getNumRows() * cols;
+        int[] header = new int[HEADER_INTS + (cells + 31) / 32];
+        header[0] = MAGIC;
+        header[1] = layout.getNumRows();
+        header[2] = cols;
+        header[3] = layout.getNumPads();
+        header[4] = layout.getNumJumps();
+        header[5] = frogs;
+        for (int cell = 0; cell < cells; ++cell) {
+            if (layout.padAt(cell / cols, cell % cols) >= 0) {
+                header[HEADER_INTS + (cell >>> 5)] |= 1 << cell;
+            }
+        }
+        return header;
+    }
+
+    /**
+     * Works out every entry, a layer at a time from the fewest green frogs up. The jumps are made and taken back on
+     * one pair of bitboards, so no configurations are made.
+     *
+     * @return True if the table was filled in, false if the thread was interrupted.
+     */
+    private boolean fill() {
+        long[] green = new long[layout.words];
+        long[] red = new long[layout.words];
+        for (int greens = 0; greens <= ranking.getMaxGreens(); ++greens) {
+            for (long rank = ranking.layerStart(greens); rank < ranking.layerStart(greens + 1); ++rank) {
+                if ((rank & 0xFFF) == 0 && Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                char entry = SOLVED;
+                if (greens > 0) {
+                    ranking.unrank(rank, green, red);
+                    entry = firstSolvableJump(green, red);
+                }
+                table.putChar(entries + 2 * (int) rank, entry);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the first jump, in the order the neighbors are made, that lands on a position already known to be
+     * solvable.
+     *
+     * @param green The green frog bitboard, put back the way it was.
+     * @param red   The red frog bitboard, put back the way it was.
+     * @return The entry of the position: the jump's index plus 2, or {@link #UNSOLVABLE} if there is none.
+     */
+    private char firstSolvableJump(long[] green, long[] red) {
+        for (int w = 0; w < layout.words; ++w) {
+            for (long frogs = green[w] | red[w]; frogs != 0; frogs &= frogs - 1) {
+                int from = (w << 6) + Long.numberOfTrailingZeros(frogs);
+                long[] mover = HoppersConfig.isSet(red, from) ? red : green;
+                for (int j = layout.jumpStart[from]; j < layout.jumpStart[from + 1]; ++j) {
+                    int over = layout.jumpOver[j];
+                    int to = layout.jumpTo[j];
+                    if (!HoppersConfig.isSet(green, over) || HoppersConfig.isSet(green, to)
+                            || HoppersConfig.isSet(red, to)) {
+                        continue;
+                    }
+                    mover[from >>> 6] ^= 1L << from;
+                    green[over >>> 6] ^= 1L << over;
+                    mover[to >>> 6] ^= 1L << to;
+                    char child = table.getChar(entries + 2 * (int) ranking.rank(green, red));
+                    mover[from >>> 6] ^= 1L << from;
+                    green[over >>> 6] ^= 1L << over;
+                    mover[to >>> 6] ^= 1L << to;
+                    if (child != UNSOLVABLE) {
+                        return (char) (j + 2);
+                    }
+                }
+            }
+        }
+        return UNSOLVABLE;
+    }
+
+    /**
+     * Gets the entry of a position.
+     *
+     * @param config The position, which the table must {@link #covers(HoppersConfig) cover}.
+     * @return The entry.
+     */
+    private char entry(HoppersConfig config) {
+        return table.getChar(entries + 2 * (int) ranking.rank(config));
+    }
+
+    /**
+     * Gets the most frogs a position in the table has.
+     *
+     * @return The number of frogs, red one included.
+     */
+    public int getFrogs() {
+        return frogs;
+    }
+
+    /**
+     * Is the position in the table? It has to be on the same layout, with one red frog and few enough green ones.
+     *
+     * @param config The position.
+     * @return True if yes, otherwise no.
+     */
+    public boolean covers(HoppersConfig config) {
+        return ranking.contains(config);
+    }
+
+    /**
+     * Can the position be solved?
+     *
+     * @param config The position, which the table must {@link #covers(HoppersConfig) cover}.
+     * @return True if yes, otherwise no.
+     */
+    public boolean isSolvable(HoppersConfig config) {
+        return entry(config) != UNSOLVABLE;
+    }
+
+    /**
+     * Gets a jump that keeps the position solvable.
+     *
+     * @param config The position, which the table must {@link #covers(HoppersConfig) cover}.
+     * @return The index of the jump in the layout, or -1 if the position is solved or can't be solved.
+     */
+    public int bestJump(HoppersConfig config) {
+        return Math.max(entry(config) - 2, -1);
+    }
+
+    /**
+     * Follows the best jumps from the position to the solution.
+     *
+     * @param config The position, which the table must {@link #covers(HoppersConfig) cover}.
+     * @return The positions after this one up to the solution, or null if it can't be solved.
+     */
+    public List<HoppersConfig> finish(HoppersConfig config) {
+        if (!isSolvable(config)) {
+            return null;
+        }
+        List<HoppersConfig> ending = new ArrayList<>();
+        for (int jump = bestJump(config); jump >= 0; jump = bestJump(config)) {
+            config = config.jump(jump);
+            ending.add(config);
+        }
+        return ending;
+    }
+}
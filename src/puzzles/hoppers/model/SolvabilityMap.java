@@ -0,0 +1,233 @@
+package puzzles.hoppers.model;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.KeyTable;
+
+import java.util.BitSet;
+
+/**
+ * Knows, for every position that can be reached from the start of a board, whether it can still be solved.
+ * <p>
+ * The positions are found with one BFS from the start and numbered in the order they were found. Every jump removes
+ * a green frog, so every neighbor of a position comes later in that order. Walking the positions from last to first
+ * therefore works backwards from the solved positions: a position is solvable when it is a solution or one of its
+ * neighbors is solvable. The answers are kept in a bitmap with one bit per position.
+ * <p>
+ * On a board small enough for a {@link HoppersRanking}, the positions are numbered by their rank instead, and both
+ * the reachable positions and the solvable ones are bitmaps over every rank. The BFS then goes a layer of the
+ * ranking at a time, and since a neighbor always has a smaller rank the solvable positions are found from the
+ * smallest rank up.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public class SolvabilityMap {
+
+    /**
+     * The position the map was built from.
+     */
+    private final HoppersConfig start;
+
+    /**
+     * Every reachable position, packed into keys, or null when the positions are ranked.
+     */
+    private final KeyTable positions;
+
+    /**
+     * The numbering of the positions when they are ranked, otherwise null.
+     */
+    private final HoppersRanking ranking;
+
+    /**
+     * One bit per rank, set when the position is reachable, when the positions are ranked.
+     */
+    private final BitSet reachable;
+
+    /**
+     * One bit per position, set when the position can still be solved.
+     */
+    private final BitSet solvable;
+
+    /**
+     * The number of reachable positions.
+     */
+    private final int size;
+
+    /**
+     * Creates the map once it has been filled in.
+     *
+     * @param start     The position the map was built from.
+     * @param positions Every reachable position, null when they are ranked.
+     * @param ranking   The numbering of the positions, null when they are packed into keys.
+     * @param reachable One bit per rank, set when the position is reachable, null when they are packed into keys.
+     * @param solvable  One bit per position, set when the position can still be solved.
+     * @param size      The number of reachable positions.
+     */
+    private SolvabilityMap(HoppersConfig start, KeyTable positions, HoppersRanking ranking, BitSet reachable,
+                           BitSet solvable, int size) {
+        this.start = start;
+        this.positions = positions;
+        this.ranking = ranking;
+        this.reachable = reachable;
+        this.solvable = solvable;
+        this.size = size;
+    }
+
+    /**
+     * Builds the map for every position reachable from the start. This can take a while on a big board, so the
+     * thread building it gives up when it is interrupted.
+     *
+     * @param start The position to start from.
+     * @param limit The most positions to store.
+     * @return The map, or null if there were more than limit positions or the thread was interrupted.
+     */
+    public static SolvabilityMap build(HoppersConfig start, int limit) {
+        HoppersRanking ranking = HoppersRanking.create(start, HoppersRanking.BITMAP_LIMIT);
+        if (ranking != null) {
+            return buildRanked(start, ranking, limit);
+        }
+        KeyTable positions = new KeyTable(start.keyWidth());
+        long[] key = new long[start.keyWidth()];
+        start.writeKey(key, 0);
+        positions.add(key, 0, -1);
+        for (int head = 0; head < positions.size(); ++head) {
+            if (positions.size() > limit || Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            positions.key(head, key, 0);
+            for (Configuration cne : start.fromKey(key, 0).getNeighbors()) {
+                ((HoppersConfig) cne).writeKey(key, 0);
+                positions.add(key, 0, head);
+            }
+        }
+        BitSet solvable = new BitSet(positions.size());
+        for (int entry = positions.size() - 1; entry >= 0; --entry) {
+            if ((entry & 0xFFF) == 0 && Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            positions.key(entry, key, 0);
+            HoppersConfig config = start.fromKey(key, 0);
+            if (config.isSolution()) {
+                solvable.set(entry);
+                continue;
+            }
+            for (Configuration cne : config.getNeighbors()) {
+                ((HoppersConfig) cne).writeKey(key, 0);
+                if (solvable.get(positions.find(key, 0))) {
+                    solvable.set(entry);
+                    break;
+                }
+            }
+        }
+        return new SolvabilityMap(start, positions, null, null, solvable, positions.size());
+    }
+
+    /**
+     * Builds the map with bitmaps over the ranks of the positions.
+     *
+     * @param start   The position to start from.
+     * @param ranking The numbering of the positions.
+     * @param limit   The most positions to store.
+     * @return The map, or null if there were more than limit positions or the thread was interrupted.
+     */
+    private static SolvabilityMap buildRanked(HoppersConfig start, HoppersRanking ranking, int limit) {
+        BitSet reachable = new BitSet((int) ranking.size());
+        reachable.set((int) ranking.rank(start));
+        int count = 1;
+        for (int greens = ranking.getMaxGreens(); greens > 0; --greens) {
+            int end = (int) ranking.layerStart(greens + 1);
+            int rank = reachable.nextSetBit((int) ranking.layerStart(greens));
+            for (; rank >= 0 && rank < end; rank = reachable.nextSetBit(rank + 1)) {
+                if (count > limit || Thread.currentThread().isInterrupted()) {
+                    return null;
+                }
+                for (Configuration cne : ranking.unrank(rank).getNeighbors()) {
+                    int next = (int) ranking.rank((HoppersConfig) cne);
+                    if (!reachable.get(next)) {
+                        reachable.set(next);
+                        ++count;
+                    }
+                }
+            }
+        }
+        BitSet solvable = new BitSet((int) ranking.size());
+        int done = 0;
+        for (int rank = reachable.nextSetBit(0); rank >= 0; rank = reachable.nextSetBit(rank + 1)) {
+            if ((++done & 0xFFF) == 0 && Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            HoppersConfig config = ranking.unrank(rank);
+            if (config.isSolution()) {
+                solvable.set(rank);
+                continue;
+            }
+            for (Configuration cne : config.getNeighbors()) {
+                if (solvable.get((int) ranking.rank((HoppersConfig) cne))) {
+                    solvable.set(rank);
+                    break;
+                }
+            }
+        }
+        return new SolvabilityMap(start, null, ranking, reachable, solvable, count);
+    }
+
+    /**
+     * Gets the position the map was built from.
+     *
+     * @return The starting position.
+     */
+    public HoppersConfig getStart() {
+        return start;
+    }
+
+    /**
+     * Is the position one the map knows about?
+     *
+     * @param config The position.
+     * @return True if yes, otherwise no.
+     */
+    public boolean contains(HoppersConfig config) {
+        return find(config) >= 0;
+    }
+
+    /**
+     * Can the position still be solved? Positions the map doesn't know about are treated as not solvable.
+     *
+     * @param config The position.
+     * @return True if yes, otherwise no.
+     */
+    public boolean isSolvable(HoppersConfig config) {
+        int entry = find(config);
+        return entry >= 0 && solvable.get(entry);
+    }
+
+    /**
+     * Gets the number of positions in the map.
+     *
+     * @return The number of positions.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the number of a position.
+     *
+     * @param config The position.
+     * @return The number, or -1 if the position isn't reachable from the start.
+     */
+    private int find(HoppersConfig config) {
+        if (ranking != null) {
+            if (!ranking.contains(config)) {
+                return -1;
+            }
+            int rank = (int) ranking.rank(config);
+            return reachable.get(rank) ? rank : -1;
+        }
+        if (!config.sameBoard(start)) {
+            return -1;
+        }
+        long[] key = new long[start.keyWidth()];
+        config.writeKey(key, 0);
+        return positions.find(key, 0);
+    }
+}
@@ -1,17 +1,23 @@
 package puzzles.hoppers.ptui;
 
 import puzzles.common.Observer;
+import puzzles.hoppers.model.HoppersEvent;
 import puzzles.hoppers.model.HoppersModel;
+import puzzles.hoppers.model.HoppersTablebase;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Scanner;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * This is the PTUI class for the Hoppers game. This implements the PTUI using the HoppersModel
  *
  * @author Evan Prizel, emp4506
  */
-public class HoppersPTUI implements Observer<HoppersModel, String> {
+public class HoppersPTUI implements Observer<HoppersModel, HoppersEvent> {
 
     /**
      * The model of the hoppers game.
@@ -38,11 +44,12 @@ public class HoppersPTUI implements Observer<HoppersModel, String> {
     /**
      * Initializes the PTUI by creating a new model using the given filename and prints out the starting statements.
      *
-     * @param filename the file name
+     * @param filename     the file name
+     * @param endgameFrogs The most frogs the endgame table for hints is built for, 0 for no table.
      * @throws IOException Thrown if the input the user gives for the filename is invalid.
      */
-    public HoppersPTUI(String filename) throws IOException {
-        this.model = new HoppersModel(filename);
+    public HoppersPTUI(String filename, int endgameFrogs) throws IOException {
+        this.model = new HoppersModel(filename, endgameFrogs);
         this.filename = filename;
         initializeView();
         System.out.println("Loaded: " + filename);
@@ -62,7 +69,7 @@ public class HoppersPTUI implements Observer<HoppersModel, String> {
                 String[] command = in.nextLine().split("\\s+");
                 switch (command[0]) {
                     case "h":
-                        model.hint();
+                        await(model.hint());
                         break;
                     case "l":
                         if (command.length >= 2) {
@@ -94,6 +101,21 @@ public class HoppersPTUI implements Observer<HoppersModel, String> {
         }
     }
 
+    /**
+     * Waits for the model to finish a search, so its answer is printed before the next prompt.
+     *
+     * @param search The search.
+     */
+    private void await(Future<?> search) {
+        try {
+            search.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (CancellationException | ExecutionException e) {
+            System.out.println("The search did not finish!");
+        }
+    }
+
     /**
      * Initializes the view.
      */
@@ -105,24 +127,30 @@ public class HoppersPTUI implements Observer<HoppersModel, String> {
      * Prints out the updated model.
      *
      * @param model The new model.
-     * @param msg   The message from the observers telling the update method what action the user took.
+     * @param event What the user did, or what the model did for them.
      */
     @Override
-    public void update(HoppersModel model, String msg) {
+    public void update(HoppersModel model, HoppersEvent event) {
+        if (event.kind() == HoppersEvent.Kind.PROGRESS) {
+            System.out.println(event.message());
+            return;
+        }
         System.out.println(model);
     }
 
     /**
-     * Runs the game and handles command arguments.
+     * Runs the game and handles command arguments. The --endgame=K switch answers hints from a
+     * {@link HoppersTablebase} once K frogs are left.
      *
      * @param args The command arguments
      * @throws IOException Thrown if the input the user gives for the filename is invalid.
      */
     public static void main(String[] args) throws IOException {
-        if (args.length != 1) {
-            System.out.println("Usage: java HoppersPTUI filename");
+        int endgameFrogs = HoppersTablebase.frogsFromArgs(Arrays.asList(args));
+        if (args.length != 1 && !(args.length == 2 && args[0].startsWith(HoppersTablebase.SWITCH))) {
+            System.out.println("Usage: java HoppersPTUI [--endgame=K] filename");
         } else {
-            HoppersPTUI hoppersPTUI = new HoppersPTUI(args[0]);
+            HoppersPTUI hoppersPTUI = new HoppersPTUI(args[args.length - 1], endgameFrogs);
             hoppersPTUI.run();
         }
     }
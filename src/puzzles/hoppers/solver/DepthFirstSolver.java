@@ -0,0 +1,220 @@
+package puzzles.hoppers.solver;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.EndgameConfiguration;
+import puzzles.common.solver.KeyTable;
+import puzzles.common.solver.KeyedConfiguration;
+import puzzles.common.solver.Solver;
+import puzzles.common.solver.SolverStats;
+import puzzles.hoppers.model.HoppersConfig;
+import puzzles.hoppers.model.HoppersRanking;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntConsumer;
+
+/**
+ * Solves a Hoppers puzzle using a depth first search. Every jump removes exactly one green frog, so every solution
+ * takes as many moves as there are green frogs and the first solution found is also a shortest one. Only the path
+ * being tried is kept, plus a table of the configurations that are known to lead nowhere so they are never searched
+ * twice. With symmetry turned on, a configuration that fails also rules out its mirror images and rotations. On a
+ * Hoppers board small enough for a {@link HoppersRanking}, the table is a bitmap with one bit per rank. Below an
+ * {@link EndgameConfiguration} whose ending is known, nothing is searched, and with pruning turned on the neighbors a
+ * {@link puzzles.common.solver.PrunableConfiguration} proves dead are skipped.
+ * <p>
+ * There are no levels in its {@link SolverStats}, and a duplicate is a neighbor that was already known to fail.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public class DepthFirstSolver extends Solver {
+
+    /**
+     * The numbering of the positions on a small Hoppers board, otherwise null.
+     */
+    private HoppersRanking ranking;
+
+    /**
+     * One bit per rank, set when the position has no solution, when the positions are ranked.
+     */
+    private BitSet failedBits;
+
+    /**
+     * The configurations that have no solution, when they can be packed into keys.
+     */
+    private KeyTable failedKeys;
+
+    /**
+     * The configurations that have no solution, when they can't be packed into keys.
+     */
+    private Set<Configuration> failed;
+
+    /**
+     * The array a configuration is packed into before it is looked up.
+     */
+    private long[] key;
+
+    /**
+     * The most failed configurations kept from one solve to the next, 0 to forget them after every solve.
+     */
+    private final int keepLimit;
+
+    /**
+     * The number of configurations searched between progress reports and checks for cancellation.
+     */
+    private static final int REPORT_EVERY = 0x10000;
+
+    /**
+     * Told how many configurations have been searched every so often, null if no one is listening.
+     */
+    private IntConsumer progress;
+
+    /**
+     * Initializes the solver with a fresh number of totalConfigs.
+     */
+    public DepthFirstSolver() {
+        this(0);
+    }
+
+    /**
+     * Initializes a solver that remembers the failed configurations between solves, which is only allowed while
+     * every solve is on the same board. Once more than keepLimit are remembered they are all forgotten.
+     *
+     * @param keepLimit The most failed configurations to keep, 0 to forget them after every solve.
+     */
+    public DepthFirstSolver(int keepLimit) {
+        super();
+        this.keepLimit = keepLimit;
+    }
+
+    /**
+     * Sets who is told how many configurations have been searched, every {@value #REPORT_EVERY} configurations.
+     *
+     * @param progress Told the number of configurations searched so far, null to stop reporting.
+     */
+    public void setProgress(IntConsumer progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * DFS SOLVER
+     * Tries the moves of each configuration in order, backing up whenever a configuration runs out of moves.
+     *
+     * @param config      The initial configuration we start with.
+     * @param finalConfig Not used, any solution is a shortest one.
+     * @return the path from the initial config to a solution
+     * @throws CancellationException Thrown if the thread was interrupted during the search.
+     */
+    @Override
+    public Collection<Configuration> solve(Configuration config, Configuration finalConfig) {
+        predecessors = null;
+        startStats();
+        totalConfigs = 0;
+        uniqueConfigs = 0;
+        int remembered = failedBits != null ? failedBits.cardinality() : failedKeys != null ? failedKeys.size()
+                : failed != null ? failed.size() : 0;
+        if (remembered == 0 || remembered > keepLimit
+                || (ranking != null && !ranking.contains((HoppersConfig) config))) {
+            ranking = config instanceof HoppersConfig hoppers
+                    ? HoppersRanking.create(hoppers, HoppersRanking.BITMAP_LIMIT) : null;
+            failedBits = null;
+            failedKeys = null;
+            failed = null;
+            if (ranking != null) {
+                failedBits = new BitSet((int) ranking.size());
+            } else if (config instanceof KeyedConfiguration keyed) {
+                failedKeys = new KeyTable(keyed.keyWidth());
+                key = new long[keyed.keyWidth()];
+            } else {
+                failed = new HashSet<>();
+            }
+        }
+        totalConfigs++;
+        List<Configuration> path = new LinkedList<>();
+        if (!isPruned(config) && !hasFailed(config) && search(config, path)) {
+            path.add(0, config);
+        }
+        stats.finish(!path.isEmpty(), failedBits != null ? failedBits.size() / 8
+                : failedKeys != null ? failedKeys.memoryBytes() : (long) failed.size() * SolverStats.MAP_ENTRY_BYTES);
+        if (keepLimit == 0) {
+            ranking = null;
+            failedBits = null;
+            failedKeys = null;
+            failed = null;
+        }
+        return path;
+    }
+
+    /**
+     * Searches below one configuration.
+     *
+     * @param config The configuration.
+     * @param path   The path from the configuration to the solution, filled in on the way back up.
+     * @return True if a solution was found, otherwise false.
+     */
+    private boolean search(Configuration config, List<Configuration> path) {
+        uniqueConfigs++;
+        if ((uniqueConfigs & (REPORT_EVERY - 1)) == 0) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("search was interrupted");
+            }
+            if (progress != null) {
+                progress.accept(uniqueConfigs);
+            }
+        }
+        if (config.isSolution()) {
+            return true;
+        }
+        if (config instanceof EndgameConfiguration endgame && endgame.inEndgame()) {
+            List<Configuration> ending = endgame.finishEndgame();
+            if (ending != null) {
+                path.addAll(0, ending);
+                return true;
+            }
+        } else {
+            stats.expanded();
+            for (Configuration cne : config.getNeighbors()) {
+                totalConfigs++;
+                if (isPruned(cne)) {
+                    continue;
+                }
+                boolean failedBefore = hasFailed(cne);
+                stats.generated(failedBefore);
+                if (!failedBefore && search(cne, path)) {
+                    path.add(0, cne);
+                    return true;
+                }
+            }
+        }
+        if (failedBits != null) {
+            failedBits.set((int) ranking.rank((HoppersConfig) canonical(config)));
+        } else if (failedKeys != null) {
+            ((KeyedConfiguration) canonical(config)).writeKey(key, 0);
+            failedKeys.add(key, 0, -1);
+        } else {
+            failed.add(canonical(config));
+        }
+        return false;
+    }
+
+    /**
+     * Is the configuration already known to have no solution?
+     *
+     * @param config The configuration.
+     * @return True if yes, otherwise no.
+     */
+    private boolean hasFailed(Configuration config) {
+        if (failedBits != null) {
+            return failedBits.get((int) ranking.rank((HoppersConfig) canonical(config)));
+        }
+        if (failedKeys != null) {
+            ((KeyedConfiguration) canonical(config)).writeKey(key, 0);
+            return failedKeys.find(key, 0) >= 0;
+        }
+        return failed.contains(canonical(config));
+    }
+}
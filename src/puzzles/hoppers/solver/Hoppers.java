@@ -2,9 +2,12 @@ package puzzles.hoppers.solver;
 
 import puzzles.common.solver.Configuration;
 import puzzles.common.solver.Solver;
+import puzzles.common.solver.SolverOptions;
 import puzzles.hoppers.model.HoppersConfig;
+import puzzles.hoppers.model.HoppersTablebase;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 
 /**
@@ -15,21 +18,37 @@ import java.util.Collection;
 public class Hoppers {
 
     /**
-     * Actually runs the solver on the configuration.
+     * Actually runs the solver on the configuration. The --dfs switch picks the {@link DepthFirstSolver}, and
+     * --endgame=K stops the search once K frogs are left and finishes from a {@link HoppersTablebase}. Only the plain
+     * BFS and the depth first search look the table up, so --endgame=K isn't taken together with --parallel,
+     * --external or --inplace. There is no --bidirectional: the red frog can end on many pads, and searching back
+     * from all of them sees more configurations than the search from the start does.
      *
      * @param args The command arguments
      * @throws IOException Thrown if the input the user gives for the filename is invalid.
      */
     public static void main(String[] args) throws IOException {
-        if (args.length != 1) {
-            System.out.println("Usage: java Hoppers filename");
+        boolean dfs = Arrays.asList(args).contains("--dfs");
+        int endgameFrogs = HoppersTablebase.frogsFromArgs(Arrays.asList(args));
+        SolverOptions options = new SolverOptions(Arrays.stream(args)
+                .filter(arg -> !arg.equals("--dfs") && !arg.startsWith(HoppersTablebase.SWITCH))
+                .toArray(String[]::new));
+        args = options.getArguments();
+        if (args.length != 1 || endgameFrogs < 0 || options.isBidirectional()
+                || (endgameFrogs > 0 && !dfs && !options.isPlainSearch())) {
+            System.out.println("Usage: java Hoppers [--dfs] [--endgame=K] " + SolverOptions.FORWARD_USAGE
+                    + " filename");
         } else {
             HoppersConfig Hoppers = new HoppersConfig(args[0]);
-            Solver solver = new Solver();
+            if (endgameFrogs > 0) {
+                Hoppers = Hoppers.withEndgame(HoppersTablebase.load(Hoppers, endgameFrogs,
+                        HoppersTablebase.DEFAULT_DIRECTORY));
+            }
+            Solver solver = dfs ? options.configure(new DepthFirstSolver()) : options.createSolver();
             Collection<Configuration> path = solver.solve(Hoppers, null);
             System.out.println(Hoppers);
             System.out.println("Total Configs: " + solver.totalConfigs);
-            System.out.println("Unique configs: " + solver.predecessors.size());
+            System.out.println("Unique configs: " + solver.uniqueConfigs);
             if (!path.isEmpty()) {
                 int i = 0;
                 for (Configuration config : path) {
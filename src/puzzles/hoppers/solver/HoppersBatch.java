@@ -0,0 +1,233 @@
+package puzzles.hoppers.solver;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Solver;
+import puzzles.common.solver.SolverOptions;
+import puzzles.hoppers.model.HoppersConfig;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solves a whole set of Hoppers puzzles in one run, several at a time, and writes each answer to its own file in
+ * the format of output/hoppers/*-out.txt, CRLF line endings included. The answers go to a scratch directory under the
+ * system temp directory unless --out says otherwise, so the reference answers are only replaced on purpose. Running
+ * everything in one JVM means startup and warmup are only paid once. When it is done it prints how long each puzzle
+ * took and how many configs per second it went through.
+ *
+ * @author Evan Prizel, emp4506
+ */
+public class HoppersBatch {
+
+    /**
+     * The usage text.
+     */
+    private final static String USAGE = "Usage: java HoppersBatch [--threads n] [--out directory] [--dfs] "
+            + SolverOptions.FORWARD_USAGE + " (directory | file | glob)...";
+
+    /**
+     * The directory the answers are written to when --out isn't given.
+     */
+    private final static Path DEFAULT_DIRECTORY = Path.of(System.getProperty("java.io.tmpdir"), "hoppers-batch");
+
+    /**
+     * What ends a line in the answers, the same as in the reference answers.
+     */
+    private final static String NL = "\r\n";
+
+    /**
+     * What happened to one puzzle.
+     *
+     * @param file         The puzzle file.
+     * @param totalConfigs The number of configs the solver generated.
+     * @param nanos        How long the puzzle took, in nanoseconds.
+     * @param solved       Whether there was a solution.
+     * @param error        Why the puzzle couldn't be solved, null if nothing went wrong.
+     */
+    private record Result(Path file, long totalConfigs, long nanos, boolean solved, String error) {
+    }
+
+    /**
+     * Finds the puzzle files an argument names. A directory gives every .txt file in it, a name with * or ? in its
+     * last part is matched against the files of its directory, and anything else is taken as a single file.
+     *
+     * @param arg The argument.
+     * @return The files, in name order.
+     * @throws IOException Thrown if the directory can't be read.
+     */
+    private static List<Path> findFiles(String arg) throws IOException {
+        Path path = Paths.get(arg);
+        List<Path> files = new ArrayList<>();
+        String name = path.getFileName() == null ? "" : path.getFileName().toString();
+        Path dir;
+        String glob;
+        if (Files.isDirectory(path)) {
+            dir = path;
+            glob = "*.txt";
+        } else if (name.contains("*") || name.contains("?")) {
+            dir = path.getParent() == null ? Paths.get("") : path.getParent();
+            glob = name;
+        } else {
+            files.add(path);
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir.toString().isEmpty() ? Paths.get(".") : dir,
+                glob)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(dir.resolve(file.getFileName()));
+                }
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+
+    /**
+     * Solves one puzzle and writes its answer.
+     *
+     * @param file    The puzzle file.
+     * @param outDir  The directory the answer goes in.
+     * @param options The solver switches.
+     * @param dfs     Whether to use the {@link DepthFirstSolver}.
+     * @return What happened.
+     */
+    private static Result solve(Path file, Path outDir, SolverOptions options, boolean dfs) {
+        long start = System.nanoTime();
+        try {
+            HoppersConfig hoppers = new HoppersConfig(file.toString());
+            Solver solver = dfs ? options.configure(new DepthFirstSolver()) : options.createSolver();
+            Collection<Configuration> path = solver.solve(hoppers, null);
+            StringBuilder out = new StringBuilder();
+            out.append("File: ").append(file).append(NL);
+            out.append(format(hoppers)).append(NL);
+            out.append("Total configs: ").append(solver.totalConfigs).append(NL);
+            out.append("Unique configs: ").append(solver.uniqueConfigs).append(NL);
+            if (path.isEmpty()) {
+                out.append("No solution");
+            } else {
+                int i = 0;
+                for (Configuration config : path) {
+                    if (i > 0) {
+                        out.append(NL).append(NL);
+                    }
+                    out.append("Step ").append(i).append(":").append(NL);
+                    out.append(format((HoppersConfig) config));
+                    ++i;
+                }
+            }
+            String name = file.getFileName().toString();
+            if (name.endsWith(".txt")) {
+                name = name.substring(0, name.length() - ".txt".length());
+            }
+            Files.createDirectories(outDir);
+            Files.writeString(outDir.resolve(name + "-out.txt"), out);
+            return new Result(file, solver.totalConfigs, System.nanoTime() - start, !path.isEmpty(), null);
+        } catch (IOException | RuntimeException | OutOfMemoryError e) {
+            return new Result(file, 0, System.nanoTime() - start, false, e.toString());
+        }
+    }
+
+    /**
+     * Writes a configuration the way the output files show it, with the cells of a row split by spaces.
+     *
+     * @param config The configuration.
+     * @return The rows, without a line ending after the last one.
+     */
+    private static String format(HoppersConfig config) {
+        StringBuilder out = new StringBuilder();
+        char[][] grid = config.getGrid();
+        for (int r = 0; r < grid.length; ++r) {
+            if (r > 0) {
+                out.append(NL);
+            }
+            for (int c = 0; c < grid[r].length; ++c) {
+                if (c > 0) {
+                    out.append(' ');
+                }
+                out.append(grid[r][c]);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Reads the arguments, solves every puzzle on a fixed number of threads, and prints the summary.
+     *
+     * @param args The command arguments
+     * @throws IOException Thrown if a directory can't be read.
+     * @throws InterruptedException Thrown if the batch is interrupted while waiting for the puzzles.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path outDir = DEFAULT_DIRECTORY;
+        boolean dfs = false;
+        List<String> rest = new ArrayList<>();
+        for (int i = 0; i < args.length; ++i) {
+            if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Math.max(1, Integer.parseInt(args[++i]));
+            } else if (args[i].equals("--out") && i + 1 < args.length) {
+                outDir = Paths.get(args[++i]);
+            } else if (args[i].equals("--dfs")) {
+                dfs = true;
+            } else {
+                rest.add(args[i]);
+            }
+        }
+        SolverOptions options = new SolverOptions(rest.toArray(new String[0]));
+        List<Path> files = new ArrayList<>();
+        for (String arg : options.getArguments()) {
+            files.addAll(findFiles(arg));
+        }
+        if (files.isEmpty() || options.isBidirectional()) {
+            System.out.println(USAGE);
+            return;
+        }
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, files.size()));
+        List<Future<Result>> pending = new ArrayList<>();
+        Path finalOutDir = outDir;
+        boolean finalDfs = dfs;
+        for (Path file : files) {
+            pending.add(pool.submit(() -> solve(file, finalOutDir, options, finalDfs)));
+        }
+        pool.shutdown();
+        long totalConfigs = 0;
+        int failed = 0;
+        for (Future<Result> future : pending) {
+            Result result;
+            try {
+                result = future.get();
+            } catch (ExecutionException e) {
+                System.out.println("Failed: " + e.getCause());
+                ++failed;
+                continue;
+            }
+            double millis = result.nanos() / 1e6;
+            if (result.error() != null) {
+                System.out.printf("%-30s failed after %.1f ms: %s%n", result.file(), millis, result.error());
+                ++failed;
+                continue;
+            }
+            totalConfigs += result.totalConfigs();
+            System.out.printf("%-30s %10.1f ms %12d configs %14.0f configs/s %s%n", result.file(), millis,
+                    result.totalConfigs(), result.totalConfigs() / Math.max(result.nanos() / 1e9, 1e-9),
+                    result.solved() ? "solved" : "no solution");
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d puzzles (%d failed) on %d threads in %.2f s: %.1f puzzles/s, %.0f configs/s%n",
+                files.size(), failed, Math.min(threads, files.size()), seconds, files.size() / seconds,
+                totalConfigs / seconds);
+        System.out.println("Answers written to " + outDir);
+    }
+}
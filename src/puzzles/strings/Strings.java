@@ -2,6 +2,7 @@ package puzzles.strings;
 
 import puzzles.common.solver.Configuration;
 import puzzles.common.solver.Solver;
+import puzzles.common.solver.SolverOptions;
 
 import java.util.Collection;
 
@@ -13,18 +14,20 @@ import java.util.Collection;
  */
 public class Strings {
     public static void main(String[] args) {
+        SolverOptions options = new SolverOptions(args);
+        args = options.getArguments();
         if (args.length < 2) {
-            System.out.println(("Usage: java Strings start finish"));
+            System.out.println(("Usage: java Strings " + SolverOptions.USAGE + " start finish"));
         } else {
             StringsConfig stringSolver = new StringsConfig(args[0], args[1]);
             StringsConfig finalString = new StringsConfig(args[1], args[1]);
             double start = System.currentTimeMillis();
-            Solver solver = new Solver();
+            Solver solver = options.createSolver();
             Collection<Configuration> path = solver.solve(stringSolver, finalString);
             double elapsed = (System.currentTimeMillis() - start) / 1000.0;
             System.out.println("Start: " + stringSolver + ", End: " + finalString);
             System.out.println("Total Configs: " + solver.totalConfigs);
-            System.out.println("Unique configs: " + solver.predecessors.size());
+            System.out.println("Unique configs: " + solver.uniqueConfigs);
             if (!path.isEmpty()) {
                 int i = 0;
                 for (Configuration config : path) {
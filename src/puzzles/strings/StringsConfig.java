@@ -1,31 +1,48 @@
 package puzzles.strings;
 
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.MutableConfiguration;
+import puzzles.common.solver.MutableState;
+import puzzles.common.solver.ReversibleConfiguration;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 
 /**
  * The Configuration class for the String puzzle.
+ * <p>
+ * A move only ever changes the first character that doesn't match the finish, so a word is always the start of the
+ * finish, then one character, then the end of the word it was found from. The words are stored that way: a
+ * {@link Text} holds the byte arrays and the tables that every configuration of one search shares, and each
+ * configuration only records the position of the first mismatch and the character there. A neighbor is made in
+ * constant time, and its hash comes from the shared tables instead of from every character. The characters are
+ * single bytes (ISO-8859-1).
  *
  * @author Evan Prizel, emp4506
  */
-public class StringsConfig implements Configuration {
+public class StringsConfig implements ReversibleConfiguration, MutableConfiguration {
 
     /**
-     * The current state of the word as an ArrayList of Characters.
+     * The word the configuration was found from and the finish, shared with its neighbors.
      */
-    private ArrayList<Character> currValue;
+    private final Text text;
 
     /**
-     * The finish value we are searching for as an ArrayList of Characters.
+     * The first position that doesn't match the finish, the length of the word when it does.
      */
-    private ArrayList<Character> finish;
+    private final int pos;
 
     /**
-     * The finish value as a String
+     * The character at pos.
      */
-    private String finishS;
+    private final byte value;
+
+    /**
+     * The hash of the word, the same as hashing its characters one by one.
+     */
+    private final int hash;
 
     /**
      * Creates a StringConfig object. Storing the currValue as well as the finish value.
@@ -34,24 +51,53 @@ public class StringsConfig implements Configuration {
      * @param finishS The final String we are searching for.
      */
     public StringsConfig(String startS, String finishS) {
-        currValue = new ArrayList<>();
-        finish = new ArrayList<>();
-        this.finishS = finishS;
-        for (int i = 0; i < startS.length(); ++i) {
-            currValue.add(startS.charAt(i));
-        }
-        for (int i = 0; i < finishS.length(); ++i) {
-            finish.add(finishS.charAt(i));
+        this(new Text(startS.getBytes(StandardCharsets.ISO_8859_1), finishS), 0,
+                startS.isEmpty() ? 0 : (byte) startS.charAt(0));
+    }
+
+    /**
+     * Creates the word that has the start of the finish up to pos, the given character at pos, and the word of the
+     * text after it. If the character matches the finish, pos moves on to the next mismatch.
+     *
+     * @param text  The shared text.
+     * @param pos   The position of the character, which must come after a part that matches the finish.
+     * @param value The character at pos.
+     */
+    private StringsConfig(Text text, int pos, byte value) {
+        if (pos < text.length() && !text.mismatch(pos, value)) {
+            pos = text.nextMismatch(pos + 1);
+            value = pos < text.length() ? text.word[pos] : 0;
         }
+        this.text = text;
+        this.pos = pos;
+        this.value = value;
+        this.hash = text.hash(pos, value);
+    }
+
+    /**
+     * Creates the word of a text whose hash is already known.
+     *
+     * @param text  The text, with the character at pos already in its word.
+     * @param pos   The first position that doesn't match the finish.
+     * @param value The character at pos.
+     * @param hash  The hash of the word.
+     */
+    private StringsConfig(Text text, int pos, byte value, int hash) {
+        this.text = text;
+        this.pos = pos;
+        this.value = value;
+        this.hash = hash;
     }
 
     /**
-     * Gets the name as an ArrayList of Characters.
+     * Gets a character of the word.
      *
-     * @return The name of the object as an ArrayList of Characters.
+     * @param index The position of the character.
+     * @return The character.
      */
-    public Collection<Character> getName() {
-        return currValue;
+    private char charAt(int index) {
+        byte result = index < pos ? text.finish[index] : index == pos ? value : text.word[index];
+        return (char) (result & 0xFF);
     }
 
     /**
@@ -61,22 +107,33 @@ public class StringsConfig implements Configuration {
      */
     @Override
     public boolean isSolution() {
-        return currValue.equals(finish);
+        return pos == text.length() && pos == text.finish.length;
     }
 
     /**
-     * The equals method for hashing. Are the two objects equal to each other?
+     * The equals method for hashing. Are the two objects equal to each other? Two configurations of the same text
+     * only have to compare their mismatch, others compare every character.
      *
      * @param other the other object.
      * @return True if yes, otherwise no.
      */
     @Override
     public boolean equals(Object other) {
-        boolean result = false;
-        if (other instanceof StringsConfig config) {
-            result = this.getName().equals(config.getName());
+        if (!(other instanceof StringsConfig config) || hash != config.hash) {
+            return false;
         }
-        return result;
+        if (text.word == config.text.word) {
+            return pos == config.pos && value == config.value;
+        }
+        if (text.length() != config.text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); ++i) {
+            if (charAt(i) != config.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -86,7 +143,7 @@ public class StringsConfig implements Configuration {
      */
     @Override
     public int hashCode() {
-        return this.currValue.hashCode();
+        return hash;
     }
 
     /**
@@ -96,61 +153,379 @@ public class StringsConfig implements Configuration {
      */
     @Override
     public String toString() {
-        String result = "";
-        String string2;
-        for (Character character : currValue) {
-            string2 = String.valueOf(character);
-            result = result + string2;
+        byte[] result = Arrays.copyOf(text.word, text.length());
+        System.arraycopy(text.finish, 0, result, 0, pos);
+        if (pos < result.length) {
+            result[pos] = value;
         }
-        return result;
+        return new String(result, StandardCharsets.ISO_8859_1);
     }
 
     /**
-     * Get the neighbors of a given configuration.
+     * Get the neighbors of a given configuration: the first character that doesn't match the finish moved down and
+     * moved up.
      *
      * @return The collection of neighbors of the given configuration.
      */
     @Override
     public Collection<Configuration> getNeighbors() {
+        if (pos == text.length()) {
+            return null;
+        }
+        ArrayList<Configuration> neighbors = new ArrayList<>(2);
+        char current = (char) (value & 0xFF);
+        neighbors.add(new StringsConfig(text, pos, (byte) lower(current)));
+        neighbors.add(new StringsConfig(text, pos, (byte) higher(current)));
+        return neighbors;
+    }
+
+    /**
+     * Get the configurations that have this configuration as one of their neighbors. A neighbor only ever changes
+     * the first character that doesn't match the finish, so the character that was changed has to come after a
+     * part that already matches, and it can't have matched before the change. These words don't fit the text of
+     * this configuration, so each one gets a text of its own, but the hash still only changes at one position.
+     *
+     * @return The collection of configurations one move before this one.
+     */
+    @Override
+    public Collection<Configuration> getReverseNeighbors() {
         ArrayList<Configuration> neighbors = new ArrayList<>();
-        String newStartLow = "";
-        String newStartHigh = "";
-        String string2;
-        for (int i = 0; i < currValue.size(); ++i) {
-            if (currValue.get(i) != finish.get(i)) {
-                Character newCharLow = currValue.get(i);
-                if (newCharLow != Character.valueOf('A')) {
-                    newCharLow--;
-                } else {
-                    newCharLow = 'Z';
-                }
-                Character newCharHigh = currValue.get(i);
-                if (newCharHigh != Character.valueOf('Z')) {
-                    newCharHigh++;
-                } else {
-                    newCharHigh = 'A';
+        for (int i = 0; i < text.length(); ++i) {
+            char current = charAt(i);
+            boolean matches = !text.mismatch(i, (byte) current);
+            for (char before = (char) (current - 1); before != (char) (current + 2); ++before) {
+                if (text.mismatch(i, (byte) before) && (lower(before) == current || higher(before) == current)) {
+                    neighbors.add(replace(i, before));
                 }
-                for (int j = 0; j < currValue.size(); ++j) {
-                    if (i == j) {
-                        string2 = String.valueOf(newCharLow);
-                    } else {
-                        string2 = String.valueOf(currValue.get(j));
-                    }
-                    newStartLow = newStartLow + string2;
+            }
+            if (current == 'A' && text.mismatch(i, (byte) 'Z')) {
+                neighbors.add(replace(i, 'Z'));
+            }
+            if (current == 'Z' && text.mismatch(i, (byte) 'A')) {
+                neighbors.add(replace(i, 'A'));
+            }
+            if (!matches) {
+                break;
+            }
+        }
+        return neighbors;
+    }
+
+    /**
+     * Creates a state with the same characters that can be searched in place.
+     *
+     * @return The new state.
+     */
+    @Override
+    public MutableState newState() {
+        return new State(toString().toCharArray(), text.finishS);
+    }
+
+    /**
+     * The character a neighbor gets when a character is moved down, wrapping from A to Z.
+     *
+     * @param character The character.
+     * @return The lower character.
+     */
+    private static char lower(char character) {
+        return character != 'A' ? (char) (character - 1) : 'Z';
+    }
+
+    /**
+     * The character a neighbor gets when a character is moved up, wrapping from Z to A.
+     *
+     * @param character The character.
+     * @return The higher character.
+     */
+    private static char higher(char character) {
+        return character != 'Z' ? (char) (character + 1) : 'A';
+    }
+
+    /**
+     * Creates the configuration of this word with one character replaced, on a text of its own.
+     *
+     * @param index     The index of the character.
+     * @param character The new character.
+     * @return The new configuration.
+     */
+    private StringsConfig replace(int index, char character) {
+        byte[] word = toString().getBytes(StandardCharsets.ISO_8859_1);
+        word[index] = (byte) character;
+        int newHash = hash + (character - charAt(index)) * text.powers[word.length - 1 - index];
+        return new StringsConfig(new Text(word, text), index, (byte) character, newHash);
+    }
+
+    /**
+     * The bytes and tables that all the configurations found from one word share.
+     */
+    private static final class Text {
+
+        /**
+         * The word the configurations were found from, and the finish.
+         */
+        private final byte[] word;
+        private final byte[] finish;
+
+        /**
+         * The finish value as a String.
+         */
+        private final String finishS;
+
+        /**
+         * The first position at or after each index where the word doesn't match the finish, with one extra entry
+         * for the end. It is only filled in once a neighbor of the word is made.
+         */
+        private int[] nextMismatch;
+
+        /**
+         * The powers of 31, and the hashes of the first i characters of the finish and of the word from i on, so
+         * the hash of a configuration is three products away. The word's hashes are filled in with nextMismatch.
+         */
+        private final int[] powers;
+        private final int[] finishHash;
+        private int[] wordHash;
+
+        /**
+         * Creates the text of a word and the finish.
+         *
+         * @param word    The word.
+         * @param finishS The final String we are searching for.
+         */
+        private Text(byte[] word, String finishS) {
+            this.word = word;
+            this.finishS = finishS;
+            this.finish = finishS.getBytes(StandardCharsets.ISO_8859_1);
+            int longest = Math.max(word.length, finish.length);
+            powers = new int[longest + 1];
+            powers[0] = 1;
+            for (int i = 1; i <= longest; ++i) {
+                powers[i] = powers[i - 1] * 31;
+            }
+            finishHash = new int[finish.length + 1];
+            for (int i = 0; i < finish.length; ++i) {
+                finishHash[i + 1] = finishHash[i] * 31 + (finish[i] & 0xFF);
+            }
+        }
+
+        /**
+         * Creates the text of another word with the same finish, sharing the finish tables.
+         *
+         * @param word  The word.
+         * @param other A text with the same finish.
+         */
+        private Text(byte[] word, Text other) {
+            this.word = word;
+            this.finishS = other.finishS;
+            this.finish = other.finish;
+            this.powers = other.powers;
+            this.finishHash = other.finishHash;
+        }
+
+        /**
+         * Fills in the tables of the word, from the end, the first time they are needed.
+         */
+        private void fillWord() {
+            if (nextMismatch != null) {
+                return;
+            }
+            nextMismatch = new int[word.length + 1];
+            wordHash = new int[word.length + 1];
+            nextMismatch[word.length] = word.length;
+            for (int i = word.length - 1; i >= 0; --i) {
+                nextMismatch[i] = mismatch(i, word[i]) ? i : nextMismatch[i + 1];
+                wordHash[i] = wordHash[i + 1] + (word[i] & 0xFF) * powers[word.length - 1 - i];
+            }
+        }
+
+        /**
+         * Gets the first position at or after the index where the word doesn't match the finish.
+         *
+         * @param index The index.
+         * @return The position, the length of the word when there is none.
+         */
+        private int nextMismatch(int index) {
+            fillWord();
+            return nextMismatch[index];
+        }
+
+        /**
+         * Gets the length of the words.
+         *
+         * @return The length.
+         */
+        private int length() {
+            return word.length;
+        }
+
+        /**
+         * Does the character not match the finish at the given position?
+         *
+         * @param index     The position.
+         * @param character The character.
+         * @return True if it doesn't match, otherwise false.
+         */
+        private boolean mismatch(int index, byte character) {
+            return index >= finish.length || finish[index] != character;
+        }
+
+        /**
+         * Hashes the word with the start of the finish up to pos, the given character at pos and this word after
+         * it, the same as hashing the characters one by one.
+         *
+         * @param pos   The position of the character.
+         * @param value The character.
+         * @return The hash.
+         */
+        private int hash(int pos, byte value) {
+            fillWord();
+            int n = word.length;
+            if (pos == n) {
+                return finishHash[n];
+            }
+            return finishHash[pos] * powers[n - pos] + (value & 0xFF) * powers[n - 1 - pos] + wordHash[pos + 1];
+        }
+    }
+
+    /**
+     * The characters of the word, changed in place. A move holds the index of the character, whether it goes up,
+     * and the character it had before so it can be put back: index << 17 | up << 16 | old character.
+     */
+    private static final class State implements MutableState {
+
+        /**
+         * The current characters.
+         */
+        private final char[] value;
+
+        /**
+         * The finish value as a String.
+         */
+        private final String finishS;
+
+        /**
+         * Creates the state.
+         *
+         * @param value   The current characters.
+         * @param finishS The final String we are searching for.
+         */
+        private State(char[] value, String finishS) {
+            this.value = value;
+            this.finishS = finishS;
+        }
+
+        /**
+         * Gets the most moves a state can have.
+         *
+         * @return 2, down or up.
+         */
+        @Override
+        public int maxMoves() {
+            return 2;
+        }
+
+        /**
+         * Lists moving the first character that doesn't match the finish down and then up. A character past the end of
+         * a shorter finish never matches, the same as for {@link #getNeighbors()}.
+         *
+         * @param moves The array the moves are written to.
+         * @return The number of moves written, 0 when the word is finished.
+         */
+        @Override
+        public int moves(int[] moves) {
+            for (int i = 0; i < value.length; ++i) {
+                if (i >= finishS.length() || value[i] != finishS.charAt(i)) {
+                    moves[0] = i << 17 | value[i];
+                    moves[1] = i << 17 | 1 << 16 | value[i];
+                    return 2;
                 }
-                neighbors.add(new StringsConfig(newStartLow, finishS));
-                for (int j = 0; j < currValue.size(); ++j) {
-                    if (i == j) {
-                        string2 = String.valueOf(newCharHigh);
-                    } else {
-                        string2 = String.valueOf(currValue.get(j));
-                    }
-                    newStartHigh = newStartHigh + string2;
+            }
+            return 0;
+        }
+
+        /**
+         * Moves the character down or up.
+         *
+         * @param move The move.
+         */
+        @Override
+        public void apply(int move) {
+            int index = move >>> 17;
+            value[index] = (move & 1 << 16) != 0 ? higher(value[index]) : lower(value[index]);
+        }
+
+        /**
+         * Puts back the character the move changed.
+         *
+         * @param move The move.
+         */
+        @Override
+        public void undo(int move) {
+            value[move >>> 17] = (char) move;
+        }
+
+        /**
+         * Does the word match the finish?
+         *
+         * @return True if yes, otherwise no.
+         */
+        @Override
+        public boolean isSolution() {
+            if (value.length != finishS.length()) {
+                return false;
+            }
+            for (int i = 0; i < value.length; ++i) {
+                if (value[i] != finishS.charAt(i)) {
+                    return false;
                 }
-                neighbors.add(new StringsConfig(newStartHigh, finishS));
-                return neighbors;
             }
+            return true;
+        }
+
+        /**
+         * Gets the number of longs in the key, four characters to a long.
+         *
+         * @return The width of the key.
+         */
+        @Override
+        public int keyWidth() {
+            return (value.length + 3) >>> 2;
+        }
+
+        /**
+         * Packs the characters into the key.
+         *
+         * @param key    The array the key is written to.
+         * @param offset The index of the first long of the key.
+         */
+        @Override
+        public void writeKey(long[] key, int offset) {
+            Arrays.fill(key, offset, offset + keyWidth(), 0);
+            for (int i = 0; i < value.length; ++i) {
+                key[offset + (i >>> 2)] |= (long) value[i] << ((i & 3) << 4);
+            }
+        }
+
+        /**
+         * Unpacks the characters from the key.
+         *
+         * @param key    The array the key is read from.
+         * @param offset The index of the first long of the key.
+         */
+        @Override
+        public void readKey(long[] key, int offset) {
+            for (int i = 0; i < value.length; ++i) {
+                value[i] = (char) (key[offset + (i >>> 2)] >>> ((i & 3) << 4));
+            }
+        }
+
+        /**
+         * Makes a configuration with the same characters.
+         *
+         * @return The configuration.
+         */
+        @Override
+        public Configuration snapshot() {
+            return new StringsConfig(new String(value), finishS);
         }
-        return null;
     }
 }